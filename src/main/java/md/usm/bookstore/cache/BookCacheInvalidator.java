@@ -0,0 +1,51 @@
+package md.usm.bookstore.cache;
+
+import md.usm.bookstore.config.CacheConfig;
+import md.usm.bookstore.event.AuthorChangedEvent;
+import md.usm.bookstore.event.BookChangedEvent;
+import md.usm.bookstore.event.CategoryChangedEvent;
+import md.usm.bookstore.repository.BookRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Objects;
+
+@Component
+public class BookCacheInvalidator {
+
+    private final Cache books;
+    private final BookRepository bookRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public BookCacheInvalidator(CacheManager cacheManager, BookRepository bookRepository,
+                                PlatformTransactionManager transactionManager) {
+        this.books = Objects.requireNonNull(cacheManager.getCache(CacheConfig.BOOKS_CACHE));
+        this.bookRepository = bookRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        books.evict(event.bookId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        readOnlyTransaction.execute(status -> bookRepository.findIdsByAuthorId(event.authorId()))
+                .forEach(books::evict);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        // only a rename reaches cached books: a new category has none and one with books cannot be deleted
+        readOnlyTransaction.execute(status -> bookRepository.findIdsByCategoryId(event.categoryId()))
+                .forEach(books::evict);
+    }
+}
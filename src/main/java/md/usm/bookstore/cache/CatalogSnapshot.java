@@ -0,0 +1,148 @@
+package md.usm.bookstore.cache;
+
+import md.usm.bookstore.dto.AuthorDto;
+import md.usm.bookstore.dto.BookDto;
+import md.usm.bookstore.dto.CategoryDto;
+import md.usm.bookstore.dto.CursorPageDto;
+import md.usm.bookstore.exception.StoreException;
+import md.usm.bookstore.utils.Cursor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import static md.usm.bookstore.utils.ErrorType.NOT_FOUND;
+
+/**
+ * The whole catalog as it was at one point in time, shaped exactly like the DTOs the services
+ * return. Never modified after construction, so any number of readers can share it without locks;
+ * {@link CatalogSnapshotStore} replaces it as a whole when the catalog changes.
+ *
+ * @param version       the number of catalog changes already reflected in this snapshot
+ * @param authorBooks   books of each author, in id order
+ * @param categoryBooks books of each category, in id order
+ */
+public record CatalogSnapshot(long version, Table<BookDto> books, Table<AuthorDto> authors, Table<CategoryDto> categories,
+                              Map<Long, List<BookDto>> authorBooks, Map<Long, List<BookDto>> categoryBooks) {
+
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(-1,
+            Table.of("Book", List.of(), BookDto::id),
+            Table.of("Author", List.of(), AuthorDto::id),
+            Table.of("Category", List.of(), CategoryDto::id),
+            Map.of(),
+            Map.of());
+
+    private static final Map<String, Comparator<BookDto>> BOOK_ORDERS = Map.of(
+            "id", Comparator.comparing(BookDto::id),
+            "title", Comparator.comparing(BookDto::title, Comparator.nullsFirst(Comparator.naturalOrder())),
+            "price", Comparator.comparing(BookDto::price, Comparator.nullsFirst(Comparator.naturalOrder())),
+            "createdAt", Comparator.comparing(BookDto::createdAt, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+    public CatalogSnapshot {
+        authorBooks = sortedById(authorBooks);
+        categoryBooks = sortedById(categoryBooks);
+    }
+
+    /**
+     * Same contract as {@code BookService.getAllByAuthor}.
+     */
+    public Page<BookDto> booksOfAuthor(Long authorId, Pageable pageable) {
+        authors.get(authorId);
+        return page(authorBooks.getOrDefault(authorId, List.of()), pageable);
+    }
+
+    /**
+     * Same contract as {@code BookService.getAllByCategory}: {@code pageable} is sorted by properties
+     * the service accepts. Books are held in id order, so only other orders sort, and only the category.
+     */
+    public Page<BookDto> booksInCategory(Long categoryId, Pageable pageable) {
+        categories.get(categoryId);
+        List<BookDto> books = categoryBooks.getOrDefault(categoryId, List.of());
+        Sort sort = pageable.getSort();
+        Sort.Order first = sort.iterator().hasNext() ? sort.iterator().next() : null;
+        if (first != null && !(first.getProperty().equals("id") && first.isAscending())) {
+            Comparator<BookDto> order = null;
+            for (Sort.Order property : sort) {
+                Comparator<BookDto> next = BOOK_ORDERS.get(property.getProperty());
+                if (property.isDescending()) next = next.reversed();
+                order = order == null ? next : order.thenComparing(next);
+            }
+            books = books.stream().sorted(order).toList();
+        }
+        return page(books, pageable);
+    }
+
+    private static Page<BookDto> page(List<BookDto> rows, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(rows);
+        }
+        int from = (int) Math.min(pageable.getOffset(), rows.size());
+        int to = Math.min(from + pageable.getPageSize(), rows.size());
+        return new PageImpl<>(rows.subList(from, to), pageable, rows.size());
+    }
+
+    private static Map<Long, List<BookDto>> sortedById(Map<Long, List<BookDto>> books) {
+        Map<Long, List<BookDto>> sorted = new HashMap<>(books.size() * 2);
+        books.forEach((id, list) -> sorted.put(id, list.stream().sorted(BOOK_ORDERS.get("id")).toList()));
+        return Map.copyOf(sorted);
+    }
+
+    /**
+     * Rows in id order, so that page {@code n} and the page after a cursor are both a sub-list.
+     */
+    public static final class Table<T> {
+
+        private final String name;
+        private final ToLongFunction<T> id;
+        private final long[] ids;
+        private final List<T> rows;
+
+        private Table(String name, ToLongFunction<T> id, List<T> rows) {
+            this.name = name;
+            this.id = id;
+            this.rows = rows.stream().sorted(Comparator.comparingLong(id)).toList();
+            this.ids = this.rows.stream().mapToLong(id).toArray();
+        }
+
+        static <T> Table<T> of(String name, List<T> rows, ToLongFunction<T> id) {
+            return new Table<>(name, id, rows);
+        }
+
+        public T get(Long id) {
+            int index = Arrays.binarySearch(ids, id);
+            if (index < 0) {
+                throw new StoreException(
+                        name + " not found with id " + id,
+                        NOT_FOUND.name(),
+                        HttpStatus.NOT_FOUND.value()
+                );
+            }
+            return rows.get(index);
+        }
+
+        public Page<T> page(Pageable pageable) {
+            int from = (int) Math.min(pageable.getOffset(), rows.size());
+            int to = Math.min(from + pageable.getPageSize(), rows.size());
+            return new PageImpl<>(rows.subList(from, to), pageable, rows.size());
+        }
+
+        public CursorPageDto<T> after(String after, int size) {
+            int limit = Cursor.limit(size).max();
+            int index = Arrays.binarySearch(ids, Cursor.decode(after));
+            int from = index < 0 ? -index - 1 : index + 1;
+            return Cursor.pageByKey(rows.subList(from, Math.min(from + limit, rows.size())), size, id);
+        }
+
+        public int size() {
+            return rows.size();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package md.usm.bookstore.cache;
+
+import md.usm.bookstore.dto.AuthorDto;
+import md.usm.bookstore.dto.BookDto;
+import md.usm.bookstore.dto.CategoryDto;
+import md.usm.bookstore.event.AuthorChangedEvent;
+import md.usm.bookstore.event.BookChangedEvent;
+import md.usm.bookstore.event.BooksImportedEvent;
+import md.usm.bookstore.event.CategoryChangedEvent;
+import md.usm.bookstore.repository.AuthorRepository;
+import md.usm.bookstore.repository.BookRepository;
+import md.usm.bookstore.repository.CategoryRepository;
+import md.usm.bookstore.repository.projection.AuthorLink;
+import md.usm.bookstore.repository.projection.BookRow;
+import md.usm.bookstore.utils.Mapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Holds the current {@link CatalogSnapshot} when {@code catalog.snapshot.enabled} is set.
+ * <p>
+ * Every committed catalog write bumps {@link #changes} before the request that made it returns, and
+ * schedules a reload on a single background thread, which swaps the new snapshot in when it is
+ * complete. Until then {@link #current()} returns {@code null} and readers go to the services, so a
+ * read never sees an older state, or an older ETag, than a write it follows. Writes that commit while
+ * a reload is pending share it, so an import of many batches costs a few reloads rather than one per batch.
+ */
+@Component
+public class CatalogSnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshotStore.class);
+
+    private final boolean enabled;
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final CategoryRepository categoryRepository;
+    private final Mapper mapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>(CatalogSnapshot.EMPTY);
+    private final AtomicLong changes = new AtomicLong();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private final ExecutorService rebuilder;
+
+    public CatalogSnapshotStore(@Value("${catalog.snapshot.enabled:false}") boolean enabled,
+                                BookRepository bookRepository, AuthorRepository authorRepository,
+                                CategoryRepository categoryRepository, Mapper mapper,
+                                PlatformTransactionManager transactionManager) {
+        this.enabled = enabled;
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.categoryRepository = categoryRepository;
+        this.mapper = mapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the snapshot, or {@code null} when snapshot mode is off or a committed write is not in
+     * it yet
+     */
+    public CatalogSnapshot current() {
+        if (!enabled) return null;
+        CatalogSnapshot current = snapshot.get();
+        return current.version() == changes.get() ? current : null;
+    }
+
+    /**
+     * @return whether the current snapshot reflects every committed catalog write
+     */
+    public boolean isUpToDate() {
+        return snapshot.get().version() == changes.get();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAll() {
+        scheduleRebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        changed();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksImported(BooksImportedEvent event) {
+        changed();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        changed();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        changed();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    private void changed() {
+        changes.incrementAndGet();
+        scheduleRebuild();
+    }
+
+    private void scheduleRebuild() {
+        if (enabled && rebuildPending.compareAndSet(false, true)) {
+            rebuilder.execute(this::rebuild);
+        }
+    }
+
+    private void rebuild() {
+        // cleared before reading the version: a write committed from here on schedules another reload
+        rebuildPending.set(false);
+        long version = changes.get();
+        if (snapshot.get().version() >= version) return;
+
+        try {
+            long start = System.nanoTime();
+            CatalogSnapshot loaded = readOnlyTransaction.execute(status -> load(version));
+            snapshot.set(loaded);
+            log.info("Loaded catalog snapshot of {} books, {} authors and {} categories in {} ms",
+                    loaded.books().size(), loaded.authors().size(), loaded.categories().size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            // readers keep the previous snapshot, the next write tries again
+            log.error("Catalog snapshot reload failed", e);
+        }
+    }
+
+    private CatalogSnapshot load(long version) {
+        List<BookDto> books = new ArrayList<>();
+        Map<Long, List<BookDto>> booksByAuthor = new HashMap<>();
+        Map<Long, List<BookDto>> authorBooks = new HashMap<>();
+        Map<Long, List<BookDto>> categoryBooks = new HashMap<>();
+
+        try (Stream<BookRow> rows = bookRepository.streamAllRows()) {
+            Iterator<BookRow> iterator = rows.iterator();
+            List<BookRow> chunk = new ArrayList<>(BookRepository.STREAM_FETCH_SIZE);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == BookRepository.STREAM_FETCH_SIZE || !iterator.hasNext()) {
+                    Map<Long, List<AuthorDto>> authors = mapper.groupByOwner(
+                            bookRepository.findAuthorLinks(chunk.stream().map(BookRow::id).toList()), AuthorLink::bookId, mapper::toDto);
+                    for (BookRow row : chunk) {
+                        List<AuthorDto> bookAuthors = authors.getOrDefault(row.id(), List.of());
+                        BookDto book = mapper.toDto(row, bookAuthors);
+                        books.add(book);
+                        if (row.categoryId() != null) {
+                            categoryBooks.computeIfAbsent(row.categoryId(), id -> new ArrayList<>()).add(book);
+                        }
+
+                        BookDto bare = mapper.toDtoWithoutAuthorCategory(row);
+                        bookAuthors.forEach(author -> {
+                            booksByAuthor.computeIfAbsent(author.id(), id -> new ArrayList<>()).add(bare);
+                            authorBooks.computeIfAbsent(author.id(), id -> new ArrayList<>()).add(book);
+                        });
+                    }
+                    chunk.clear();
+                }
+            }
+        }
+
+        List<AuthorDto> authors = authorRepository.findAllRows(Pageable.unpaged()).stream()
+                .map(row -> mapper.toDto(row, List.copyOf(booksByAuthor.getOrDefault(row.id(), List.of()))))
+                .toList();
+        List<CategoryDto> categories = categoryRepository.findAllRows(Pageable.unpaged()).map(mapper::toDto).getContent();
+
+        return new CatalogSnapshot(version,
+                CatalogSnapshot.Table.of("Book", books, BookDto::id),
+                CatalogSnapshot.Table.of("Author", authors, AuthorDto::id),
+                CatalogSnapshot.Table.of("Category", categories, CategoryDto::id),
+                authorBooks,
+                categoryBooks);
+    }
+}
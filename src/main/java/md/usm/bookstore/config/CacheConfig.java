@@ -0,0 +1,36 @@
+package md.usm.bookstore.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import md.usm.bookstore.dto.BookDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String BOOKS_CACHE = "books";
+
+    /**
+     * W-TinyLFU bounded by weight: a book weighs one unit plus one per author,
+     * which tracks the size of the cached {@link BookDto} closely enough.
+     * <p>
+     * Entries are evicted after commit, but a read that loaded a book before the commit can still put
+     * it back afterwards; {@code expireAfterWrite} bounds how long such a stale entry is served.
+     */
+    @Bean
+    public Caffeine<Object, Object> caffeine(@Value("${catalog.book-cache.max-weight:50000}") long maxWeight,
+                                             @Value("${catalog.book-cache.expire-after-write-ms:600000}") long expireAfterWriteMs) {
+        return Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+                .weigher((key, value) -> value instanceof BookDto book && book.authors() != null
+                        ? 1 + book.authors().size()
+                        : 1)
+                .recordStats();
+    }
+}
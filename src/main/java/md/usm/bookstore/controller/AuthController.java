@@ -5,7 +5,7 @@ import md.usm.bookstore.dto.LoginRequestDto;
 import md.usm.bookstore.dto.RegistrationRequestDto;
 import md.usm.bookstore.dto.UserDto;
 import md.usm.bookstore.exception.StoreException;
-import md.usm.bookstore.model.User;
+import md.usm.bookstore.security.AuthenticatedUser;
 import md.usm.bookstore.service.UserService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -33,6 +33,7 @@ public class AuthController {
             String token = userService.login(request.username(), request.password());
             return ResponseEntity.ok(token);
         } catch (StoreException e) {
+            if (e.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE.value()) throw e;
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
         }
     }
@@ -45,8 +46,8 @@ public class AuthController {
 
     @GetMapping("/me")
     public ResponseEntity<String> whoAmI(@RequestHeader("Authorization") String token) {
-        User user = userService.getUserByToken(token);
+        AuthenticatedUser user = userService.getUserByToken(token);
         if (user == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid or expired token");
-        return ResponseEntity.ok("Logged in as: " + user.getUsername());
+        return ResponseEntity.ok("Logged in as: " + user.username());
     }
 }
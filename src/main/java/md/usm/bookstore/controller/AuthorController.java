@@ -1,10 +1,16 @@
 package md.usm.bookstore.controller;
 
 import jakarta.validation.Valid;
+import md.usm.bookstore.cache.CatalogSnapshot;
+import md.usm.bookstore.cache.CatalogSnapshotStore;
 import md.usm.bookstore.dto.AuthorDto;
+import md.usm.bookstore.dto.AuthorSummaryDto;
+import md.usm.bookstore.dto.BookDto;
+import md.usm.bookstore.dto.CursorPageDto;
 import md.usm.bookstore.model.Role;
+import md.usm.bookstore.security.RequiredRoles;
 import md.usm.bookstore.service.AuthorService;
-import md.usm.bookstore.service.UserService;
+import md.usm.bookstore.service.BookService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
@@ -16,48 +22,79 @@ import org.springframework.web.bind.annotation.*;
 public class AuthorController {
 
     private final AuthorService authorService;
+    private final BookService bookService;
+    private final CatalogSnapshotStore catalog;
 
-    private final UserService userService;
-
-    public AuthorController(AuthorService authorService, UserService userService) {
+    public AuthorController(AuthorService authorService, BookService bookService, CatalogSnapshotStore catalog) {
         this.authorService = authorService;
-        this.userService = userService;
+        this.bookService = bookService;
+        this.catalog = catalog;
     }
 
+    @RequiredRoles(Role.ADMIN)
     @PostMapping
-    public ResponseEntity<AuthorDto> create(@RequestHeader("Authorization") String token,
-                                            @RequestBody @Valid AuthorDto dto) {
-        userService.validateRole(token, Role.ADMIN);
+    public ResponseEntity<AuthorDto> create(@RequestBody @Valid AuthorDto dto) {
         return ResponseEntity.status(HttpStatus.CREATED).body(authorService.create(dto));
     }
 
+    @RequiredRoles({Role.USER, Role.ADMIN})
     @GetMapping
-    public ResponseEntity<Page<AuthorDto>> getAll(@RequestHeader("Authorization") String token,
-                                                  @RequestParam(defaultValue = "0") int page,
+    public ResponseEntity<Page<AuthorDto>> getAll(@RequestParam(defaultValue = "0") int page,
                                                   @RequestParam(defaultValue = "10") int size) {
-        userService.validateRoles(token, Role.USER, Role.ADMIN);
-        return ResponseEntity.ok(authorService.getAll(PageRequest.of(page, size)));
+        CatalogSnapshot snapshot = catalog.current();
+        return ResponseEntity.ok(snapshot != null
+                ? snapshot.authors().page(PageRequest.of(page, size))
+                : authorService.getAll(PageRequest.of(page, size)));
     }
 
+    @RequiredRoles({Role.USER, Role.ADMIN})
+    @GetMapping(params = {"summary", "!after"})
+    public ResponseEntity<Page<AuthorSummaryDto>> getSummaries(@RequestParam(defaultValue = "0") int page,
+                                                               @RequestParam(defaultValue = "10") int size,
+                                                               @RequestParam(defaultValue = "0") int titles) {
+        return ResponseEntity.ok(authorService.getSummaries(PageRequest.of(page, size), titles));
+    }
+
+    @RequiredRoles({Role.USER, Role.ADMIN})
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPageDto<AuthorDto>> getAllAfter(@RequestParam(required = false) String after,
+                                                                @RequestParam(defaultValue = "10") int size) {
+        CatalogSnapshot snapshot = catalog.current();
+        return ResponseEntity.ok(snapshot != null
+                ? snapshot.authors().after(after, size)
+                : authorService.getAllAfter(after, size));
+    }
+
+    @RequiredRoles({Role.USER, Role.ADMIN})
     @GetMapping("/{id}")
-    public ResponseEntity<AuthorDto> getById(@RequestHeader("Authorization") String token,
-                                             @PathVariable Long id) {
-        userService.validateRoles(token, Role.USER, Role.ADMIN);
-        return ResponseEntity.ok(authorService.getById(id));
+    public ResponseEntity<AuthorDto> getById(@PathVariable Long id) {
+        CatalogSnapshot snapshot = catalog.current();
+        return ResponseEntity.ok(snapshot != null
+                ? snapshot.authors().get(id)
+                : authorService.getById(id));
+    }
+
+    @RequiredRoles({Role.USER, Role.ADMIN})
+    @GetMapping("/{id}/books")
+    public ResponseEntity<Page<BookDto>> getBooks(@PathVariable Long id,
+                                                  @RequestParam(defaultValue = "0") int page,
+                                                  @RequestParam(defaultValue = "10") int size) {
+        CatalogSnapshot snapshot = catalog.current();
+        return ResponseEntity.ok(snapshot != null
+                ? snapshot.booksOfAuthor(id, PageRequest.of(page, size))
+                : bookService.getAllByAuthor(id, PageRequest.of(page, size)));
     }
 
+    @RequiredRoles(Role.ADMIN)
     @PutMapping("/{id}")
-    public ResponseEntity<AuthorDto> update(@RequestHeader("Authorization") String token,
-                                            @PathVariable Long id,
+    public ResponseEntity<AuthorDto> update(@PathVariable Long id,
                                             @RequestBody @Valid AuthorDto dto) {
-        userService.validateRole(token, Role.ADMIN);
         return ResponseEntity.ok(authorService.update(id, dto));
     }
 
+    @RequiredRoles(Role.ADMIN)
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@RequestHeader("Authorization") String token,
-                                       @PathVariable Long id) {
-        userService.validateRole(token, Role.ADMIN);
+    public ResponseEntity<Void> delete(@PathVariable Long id) {
         authorService.delete(id);
         return ResponseEntity.noContent().build();
     }
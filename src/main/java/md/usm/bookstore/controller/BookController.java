@@ -1,62 +1,143 @@
 package md.usm.bookstore.controller;
 
 import jakarta.validation.Valid;
+import md.usm.bookstore.cache.CatalogSnapshot;
+import md.usm.bookstore.cache.CatalogSnapshotStore;
 import md.usm.bookstore.dto.BookDto;
+import md.usm.bookstore.dto.CursorPageDto;
+import md.usm.bookstore.dto.FacetedPageDto;
+import md.usm.bookstore.dto.ImportReportDto;
+import md.usm.bookstore.dto.SuggestionDto;
+import md.usm.bookstore.index.BookFilter;
 import md.usm.bookstore.model.Role;
+import md.usm.bookstore.security.RequiredRoles;
+import md.usm.bookstore.service.BookExportService;
+import md.usm.bookstore.service.BookImportService;
 import md.usm.bookstore.service.BookService;
-import md.usm.bookstore.service.UserService;
+import md.usm.bookstore.utils.ETags;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/book")
 public class BookController {
 
     private final BookService bookService;
-    private final UserService userService;
+    private final BookImportService bookImportService;
+    private final BookExportService bookExportService;
+    private final CatalogSnapshotStore catalog;
 
-    public BookController(BookService bookService, UserService userService) {
+    public BookController(BookService bookService, BookImportService bookImportService, BookExportService bookExportService, CatalogSnapshotStore catalog) {
         this.bookService = bookService;
-        this.userService = userService;
+        this.bookImportService = bookImportService;
+        this.bookExportService = bookExportService;
+        this.catalog = catalog;
     }
 
+    @RequiredRoles(Role.ADMIN)
     @PostMapping
-    public ResponseEntity<BookDto> create(@RequestHeader("Authorization") String token,
-                                          @RequestBody @Valid BookDto dto) {
-        userService.validateRole(token, Role.ADMIN);
+    public ResponseEntity<BookDto> create(@RequestBody @Valid BookDto dto) {
         return ResponseEntity.status(HttpStatus.CREATED).body(bookService.create(dto));
     }
 
+    @RequiredRoles(Role.ADMIN)
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<ImportReportDto> importBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                       InputStream body) {
+        return ResponseEntity.ok(bookImportService.importBooks(body, contentType));
+    }
+
+    @RequiredRoles(Role.ADMIN)
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(bookExportService::export);
+    }
+
+    @RequiredRoles({Role.USER, Role.ADMIN})
     @GetMapping
-    public ResponseEntity<Page<BookDto>> getAll(@RequestHeader("Authorization") String token,
-                                                @RequestParam(defaultValue = "0") int page,
+    public ResponseEntity<Page<BookDto>> getAll(@RequestParam(defaultValue = "0") int page,
                                                 @RequestParam(defaultValue = "10") int size) {
-        userService.validateRoles(token, Role.USER, Role.ADMIN);
-        return ResponseEntity.ok(bookService.getAll(PageRequest.of(page, size)));
+        CatalogSnapshot snapshot = catalog.current();
+        return ResponseEntity.ok(snapshot != null
+                ? snapshot.books().page(PageRequest.of(page, size))
+                : bookService.getAll(PageRequest.of(page, size)));
+    }
+
+    @RequiredRoles({Role.USER, Role.ADMIN})
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPageDto<BookDto>> getAllAfter(@RequestParam(required = false) String after,
+                                                              @RequestParam(defaultValue = "10") int size) {
+        CatalogSnapshot snapshot = catalog.current();
+        return ResponseEntity.ok(snapshot != null
+                ? snapshot.books().after(after, size)
+                : bookService.getAllAfter(after, size));
+    }
+
+    @RequiredRoles({Role.USER, Role.ADMIN})
+    @GetMapping(params = {"facets", "!after"})
+    public ResponseEntity<FacetedPageDto<BookDto>> browse(@RequestParam(required = false) Long categoryId,
+                                                          @RequestParam(required = false) Long authorId,
+                                                          @RequestParam(required = false) Double minPrice,
+                                                          @RequestParam(required = false) Double maxPrice,
+                                                          @RequestParam(defaultValue = "0") int page,
+                                                          @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(bookService.browse(new BookFilter(categoryId, authorId, minPrice, maxPrice), page, size));
+    }
+
+    @RequiredRoles({Role.USER, Role.ADMIN})
+    @GetMapping("/search")
+    public ResponseEntity<List<BookDto>> search(@RequestParam("q") String query,
+                                                @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(bookService.search(query, limit));
+    }
+
+    @RequiredRoles({Role.USER, Role.ADMIN})
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDto>> suggest(@RequestParam String prefix,
+                                                       @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(bookService.suggest(prefix, limit));
+    }
+
+    @RequiredRoles({Role.USER, Role.ADMIN})
+    @GetMapping("/{id}/related")
+    public ResponseEntity<List<BookDto>> related(@PathVariable Long id,
+                                                 @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(bookService.related(id, limit));
     }
 
+    @RequiredRoles({Role.USER, Role.ADMIN})
     @GetMapping("/{id}")
-    public ResponseEntity<BookDto> getById(@RequestHeader("Authorization") String token,
-                                           @PathVariable Long id) {
-        userService.validateRoles(token, Role.USER, Role.ADMIN);
-        return ResponseEntity.ok(bookService.getById(id));
+    public ResponseEntity<BookDto> getById(@PathVariable Long id) {
+        CatalogSnapshot snapshot = catalog.current();
+        BookDto book = snapshot != null
+                ? snapshot.books().get(id)
+                : bookService.getById(id);
+        return ETags.ok(book, book.version());
     }
 
+    @RequiredRoles(Role.ADMIN)
     @PutMapping("/{id}")
-    public ResponseEntity<BookDto> update(@RequestHeader("Authorization") String token,
-                                          @PathVariable Long id,
+    public ResponseEntity<BookDto> update(@PathVariable Long id,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                           @RequestBody @Valid BookDto dto) {
-        userService.validateRole(token, Role.ADMIN);
-        return ResponseEntity.ok(bookService.update(id, dto));
+        BookDto updated = bookService.update(id, dto, ETags.parseIfMatch(ifMatch));
+        return ETags.ok(updated, updated.version());
     }
 
+    @RequiredRoles(Role.ADMIN)
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@RequestHeader("Authorization") String token,
-                                       @PathVariable Long id) {
-        userService.validateRole(token, Role.ADMIN);
+    public ResponseEntity<Void> delete(@PathVariable Long id) {
         bookService.delete(id);
         return ResponseEntity.noContent().build();
     }
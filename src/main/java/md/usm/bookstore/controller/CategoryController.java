@@ -1,12 +1,19 @@
 package md.usm.bookstore.controller;
 
 import jakarta.validation.Valid;
+import md.usm.bookstore.cache.CatalogSnapshot;
+import md.usm.bookstore.cache.CatalogSnapshotStore;
+import md.usm.bookstore.dto.BookDto;
 import md.usm.bookstore.dto.CategoryDto;
+import md.usm.bookstore.dto.CursorPageDto;
 import md.usm.bookstore.model.Role;
+import md.usm.bookstore.security.RequiredRoles;
+import md.usm.bookstore.service.BookService;
 import md.usm.bookstore.service.CategoryService;
-import md.usm.bookstore.service.UserService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,47 +23,74 @@ import org.springframework.web.bind.annotation.*;
 public class CategoryController {
 
     private final CategoryService categoryService;
-    private final UserService userService;
+    private final BookService bookService;
+    private final CatalogSnapshotStore catalog;
 
-    public CategoryController(CategoryService categoryService, UserService userService) {
+    public CategoryController(CategoryService categoryService, BookService bookService, CatalogSnapshotStore catalog) {
         this.categoryService = categoryService;
-        this.userService = userService;
+        this.bookService = bookService;
+        this.catalog = catalog;
     }
 
+    @RequiredRoles(Role.ADMIN)
     @PostMapping
-    public ResponseEntity<CategoryDto> create(@RequestHeader("Authorization") String token,
-                                              @RequestBody @Valid CategoryDto dto) {
-        userService.validateRole(token, Role.ADMIN);
+    public ResponseEntity<CategoryDto> create(@RequestBody @Valid CategoryDto dto) {
         return ResponseEntity.status(HttpStatus.CREATED).body(categoryService.create(dto));
     }
 
+    @RequiredRoles({Role.USER, Role.ADMIN})
     @GetMapping
-    public ResponseEntity<Page<CategoryDto>> getAll(@RequestHeader("Authorization") String token,
-                                                    @RequestParam(defaultValue = "0") int page,
+    public ResponseEntity<Page<CategoryDto>> getAll(@RequestParam(defaultValue = "0") int page,
                                                     @RequestParam(defaultValue = "10") int size) {
-        userService.validateRoles(token, Role.USER, Role.ADMIN);
-        return ResponseEntity.ok(categoryService.getAll(PageRequest.of(page, size)));
+        CatalogSnapshot snapshot = catalog.current();
+        return ResponseEntity.ok(snapshot != null
+                ? snapshot.categories().page(PageRequest.of(page, size))
+                : categoryService.getAll(PageRequest.of(page, size)));
+    }
+
+    @RequiredRoles({Role.USER, Role.ADMIN})
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPageDto<CategoryDto>> getAllAfter(@RequestParam(required = false) String after,
+                                                                  @RequestParam(defaultValue = "10") int size) {
+        CatalogSnapshot snapshot = catalog.current();
+        return ResponseEntity.ok(snapshot != null
+                ? snapshot.categories().after(after, size)
+                : categoryService.getAllAfter(after, size));
     }
 
+    @RequiredRoles({Role.USER, Role.ADMIN})
     @GetMapping("/{id}")
-    public ResponseEntity<CategoryDto> getById(@RequestHeader("Authorization") String token,
-                                               @PathVariable Long id) {
-        userService.validateRoles(token, Role.USER, Role.ADMIN);
-        return ResponseEntity.ok(categoryService.getById(id));
+    public ResponseEntity<CategoryDto> getById(@PathVariable Long id) {
+        CatalogSnapshot snapshot = catalog.current();
+        return ResponseEntity.ok(snapshot != null
+                ? snapshot.categories().get(id)
+                : categoryService.getById(id));
+    }
+
+    @RequiredRoles({Role.USER, Role.ADMIN})
+    @GetMapping("/{id}/books")
+    public ResponseEntity<Page<BookDto>> getBooks(@PathVariable Long id,
+                                                  @RequestParam(defaultValue = "0") int page,
+                                                  @RequestParam(defaultValue = "10") int size,
+                                                  @RequestParam(defaultValue = "id") String sort,
+                                                  @RequestParam(defaultValue = "ASC") Sort.Direction direction) {
+        Pageable pageable = BookService.checkSort(PageRequest.of(page, size, direction, sort));
+        CatalogSnapshot snapshot = catalog.current();
+        return ResponseEntity.ok(snapshot != null
+                ? snapshot.booksInCategory(id, pageable)
+                : bookService.getAllByCategory(id, pageable));
     }
 
+    @RequiredRoles(Role.ADMIN)
     @PutMapping("/{id}")
-    public ResponseEntity<CategoryDto> update(@RequestHeader("Authorization") String token,
-                                              @PathVariable Long id,
+    public ResponseEntity<CategoryDto> update(@PathVariable Long id,
                                               @RequestBody @Valid CategoryDto dto) {
-        userService.validateRole(token, Role.ADMIN);
         return ResponseEntity.ok(categoryService.update(id, dto));
     }
 
+    @RequiredRoles(Role.ADMIN)
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@RequestHeader("Authorization") String token,
-                                       @PathVariable Long id) {
-        userService.validateRole(token, Role.ADMIN);
+    public ResponseEntity<Void> delete(@PathVariable Long id) {
         categoryService.delete(id);
         return ResponseEntity.noContent().build();
     }
@@ -1,13 +1,18 @@
 package md.usm.bookstore.controller;
 
 import jakarta.validation.Valid;
+import md.usm.bookstore.dto.CursorPageDto;
 import md.usm.bookstore.dto.OrderDto;
 import md.usm.bookstore.dto.PaymentDto;
 import md.usm.bookstore.model.Role;
+import md.usm.bookstore.security.AuthenticatedUser;
+import md.usm.bookstore.security.RequiredRoles;
+import md.usm.bookstore.service.IdempotencyService;
 import md.usm.bookstore.service.OrderService;
-import md.usm.bookstore.service.UserService;
+import md.usm.bookstore.utils.ETags;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,65 +22,87 @@ import org.springframework.web.bind.annotation.*;
 public class OrderController {
 
     private final OrderService orderService;
-    private final UserService userService;
+    private final IdempotencyService idempotency;
 
-    public OrderController(OrderService orderService, UserService userService) {
+    public OrderController(OrderService orderService, IdempotencyService idempotency) {
         this.orderService = orderService;
-        this.userService = userService;
+        this.idempotency = idempotency;
     }
 
+    @RequiredRoles(Role.ADMIN)
     @PostMapping
-    public ResponseEntity<OrderDto> create(@RequestHeader("Authorization") String token,
+    public ResponseEntity<OrderDto> create(AuthenticatedUser user,
+                                           @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
                                            @RequestBody @Valid OrderDto dto) {
-        userService.validateRole(token, Role.ADMIN);
-        return ResponseEntity.status(HttpStatus.CREATED).body(orderService.create(dto, userService.getUserByToken(token)));
+        OrderDto created = idempotency.execute(user, idempotencyKey, "order.create", dto, OrderDto.class,
+                () -> orderService.create(dto, user));
+        return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
+    @RequiredRoles(Role.ADMIN)
     @GetMapping
-    public ResponseEntity<Page<OrderDto>> getAll(@RequestHeader("Authorization") String token,
-                                                 @RequestParam(defaultValue = "0") int page,
+    public ResponseEntity<Page<OrderDto>> getAll(@RequestParam(defaultValue = "0") int page,
                                                  @RequestParam(defaultValue = "10") int size) {
-        userService.validateRole(token, Role.ADMIN);
         return ResponseEntity.ok(orderService.getAll(PageRequest.of(page, size)));
     }
 
+    @RequiredRoles(Role.ADMIN)
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPageDto<OrderDto>> getAllAfter(@RequestParam(required = false) String after,
+                                                               @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(orderService.getAllAfter(after, size));
+    }
+
+    @RequiredRoles({Role.USER, Role.ADMIN})
     @GetMapping("/{id}")
-    public ResponseEntity<OrderDto> getById(@RequestHeader("Authorization") String token,
+    public ResponseEntity<OrderDto> getById(AuthenticatedUser user,
                                             @PathVariable Long id) {
-        userService.validateRoles(token, Role.USER, Role.ADMIN);
-        return ResponseEntity.ok(orderService.getById(id, userService.getUserByToken(token)));
+        OrderDto order = orderService.getById(id, user);
+        return ETags.ok(order, order.version());
     }
 
+    @RequiredRoles({Role.USER, Role.ADMIN})
     @PutMapping("/{id}")
-    public ResponseEntity<OrderDto> update(@RequestHeader("Authorization") String token,
+    public ResponseEntity<OrderDto> update(AuthenticatedUser user,
                                            @PathVariable Long id,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                            @RequestBody @Valid OrderDto dto) {
-        userService.validateRoles(token, Role.USER, Role.ADMIN);
-        return ResponseEntity.ok(orderService.update(id, dto, userService.getUserByToken(token)));
+        OrderDto updated = orderService.update(id, dto, user, ETags.parseIfMatch(ifMatch));
+        return ETags.ok(updated, updated.version());
     }
 
+    @RequiredRoles(Role.ADMIN)
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@RequestHeader("Authorization") String token,
-                                       @PathVariable Long id) {
-        userService.validateRole(token, Role.ADMIN);
+    public ResponseEntity<Void> delete(@PathVariable Long id) {
         orderService.delete(id);
         return ResponseEntity.noContent().build();
     }
 
+    @RequiredRoles({Role.USER, Role.ADMIN})
     @GetMapping("/my")
-    public Page<OrderDto> getMyOrders(@RequestHeader("Authorization") String token,
+    public Page<OrderDto> getMyOrders(AuthenticatedUser user,
                                       @RequestParam(defaultValue = "0") int page,
                                       @RequestParam(defaultValue = "10") int size) {
-        userService.validateRoles(token, Role.USER, Role.ADMIN);
-        return orderService.getMyOrders(userService.getUserByToken(token), PageRequest.of(page, size));
+        return orderService.getMyOrders(user, PageRequest.of(page, size));
+    }
+
+    @RequiredRoles({Role.USER, Role.ADMIN})
+    @GetMapping(value = "/my", params = "after")
+    public ResponseEntity<CursorPageDto<OrderDto>> getMyOrdersAfter(AuthenticatedUser user,
+                                                                    @RequestParam(required = false) String after,
+                                                                    @RequestParam(defaultValue = "10") int size,
+                                                                    @RequestParam(defaultValue = "true") boolean includeTotal) {
+        return ResponseEntity.ok(orderService.getMyOrdersAfter(user, after, size, includeTotal));
     }
 
+    @RequiredRoles({Role.USER, Role.ADMIN})
     @PostMapping("/{id}/pay")
-    public ResponseEntity<String> payOrder(@RequestHeader("Authorization") String token,
+    public ResponseEntity<String> payOrder(AuthenticatedUser user,
                                            @PathVariable Long id,
+                                           @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
                                            @RequestBody @Valid PaymentDto payment) {
-        userService.validateRoles(token, Role.USER, Role.ADMIN);
-        return ResponseEntity.ok(orderService.payOrder(userService.getUserByToken(token), id, payment));
+        return ResponseEntity.ok(idempotency.execute(user, idempotencyKey, "order.pay:" + id, payment, String.class,
+                () -> orderService.payOrder(user, id, payment)));
     }
 
 }
@@ -1,9 +1,11 @@
 package md.usm.bookstore.controller;
 
 import jakarta.validation.Valid;
+import md.usm.bookstore.dto.CursorPageDto;
 import md.usm.bookstore.dto.UserDto;
 import md.usm.bookstore.model.Role;
-import md.usm.bookstore.model.User;
+import md.usm.bookstore.security.AuthenticatedUser;
+import md.usm.bookstore.security.RequiredRoles;
 import md.usm.bookstore.service.UserService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -20,40 +22,44 @@ public class UserController {
         this.userService = userService;
     }
 
+    @RequiredRoles(Role.ADMIN)
     @GetMapping
-    public ResponseEntity<Page<UserDto>> getAll(@RequestHeader("Authorization") String token,
-                                                @RequestParam(defaultValue = "0") int page,
+    public ResponseEntity<Page<UserDto>> getAll(@RequestParam(defaultValue = "0") int page,
                                                 @RequestParam(defaultValue = "10") int size) {
-        userService.validateRole(token, Role.ADMIN);
         return ResponseEntity.ok(userService.getAll(PageRequest.of(page, size)));
     }
 
+    @RequiredRoles(Role.ADMIN)
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPageDto<UserDto>> getAllAfter(@RequestParam(required = false) String after,
+                                                              @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(userService.getAllAfter(after, size));
+    }
+
+    @RequiredRoles(Role.ADMIN)
     @GetMapping("/{id}")
-    public ResponseEntity<UserDto> getById(@RequestHeader("Authorization") String token,
-                                           @PathVariable Long id) {
-        userService.validateRole(token, Role.ADMIN);
+    public ResponseEntity<UserDto> getById(@PathVariable Long id) {
         return ResponseEntity.ok(userService.getById(id));
     }
 
+    @RequiredRoles({Role.USER, Role.ADMIN})
     @PutMapping("/{id}")
-    public ResponseEntity<UserDto> update(@RequestHeader("Authorization") String token,
+    public ResponseEntity<UserDto> update(AuthenticatedUser user,
                                           @PathVariable Long id,
                                           @RequestBody @Valid UserDto dto) {
-        User user = userService.getUserByToken(token);
         return ResponseEntity.ok(userService.update(id, dto, user));
     }
 
+    @RequiredRoles(Role.ADMIN)
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@RequestHeader("Authorization") String token,
-                                       @PathVariable Long id) {
-        userService.validateRole(token, Role.ADMIN);
+    public ResponseEntity<Void> delete(@PathVariable Long id) {
         userService.delete(id);
         return ResponseEntity.noContent().build();
     }
 
+    @RequiredRoles({Role.USER, Role.ADMIN})
     @GetMapping("/profile")
-    public ResponseEntity<UserDto> getProfile(@RequestHeader("Authorization") String token) {
-        User user = userService.getUserByToken(token);
+    public ResponseEntity<UserDto> getProfile(AuthenticatedUser user) {
         return ResponseEntity.ok(userService.getProfile(user));
     }
 
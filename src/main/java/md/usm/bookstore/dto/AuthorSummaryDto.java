@@ -0,0 +1,24 @@
+package md.usm.bookstore.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * An author with the number of books instead of the books themselves.
+ *
+ * @param titles the first few titles in alphabetical order, empty unless requested
+ */
+public record AuthorSummaryDto(
+        Long id,
+
+        String firstName,
+
+        String lastName,
+
+        long bookCount,
+
+        List<String> titles,
+
+        LocalDateTime createdAt
+) {
+}
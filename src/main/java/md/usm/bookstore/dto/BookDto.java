@@ -1,5 +1,6 @@
 package md.usm.bookstore.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -24,6 +25,10 @@ public record BookDto(
 
         CategoryDto category,
 
-        LocalDateTime createdAt
+        LocalDateTime createdAt,
+
+        // entity version, also sent as the ETag of single-resource responses
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        Long version
 ) {
 }
@@ -3,15 +3,18 @@ package md.usm.bookstore.dto;
 import jakarta.validation.constraints.NotBlank;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
+/**
+ * @param bookCount number of books in the category, {@code null} where the category is nested in a book;
+ *                  the books themselves are paged through {@code GET /api/v1/category/{id}/books}
+ */
 public record CategoryDto(
         Long id,
 
         @NotBlank(message = "Category name is required")
         String name,
 
-        List<BookDto> books,
+        Long bookCount,
 
         LocalDateTime createdAt
 ) {
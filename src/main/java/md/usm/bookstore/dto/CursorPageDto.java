@@ -0,0 +1,21 @@
+package md.usm.bookstore.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+public record CursorPageDto<T>(
+        List<T> content,
+
+        int size,
+
+        String nextCursor,
+
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        Long totalElements
+) {
+
+    public CursorPageDto<T> withTotal(long totalElements) {
+        return new CursorPageDto<>(content, size, nextCursor, totalElements);
+    }
+}
@@ -0,0 +1,11 @@
+package md.usm.bookstore.dto;
+
+/**
+ * One facet value: a category or author id, or a price bucket such as {@code 10-20}.
+ */
+public record FacetCountDto(
+        String value,
+        String label,
+        int count
+) {
+}
@@ -0,0 +1,14 @@
+package md.usm.bookstore.dto;
+
+import java.util.List;
+
+public record FacetedPageDto<T>(
+        List<T> content,
+        int page,
+        int size,
+        long totalElements,
+        List<FacetCountDto> categories,
+        List<FacetCountDto> authors,
+        List<FacetCountDto> prices
+) {
+}
@@ -0,0 +1,17 @@
+package md.usm.bookstore.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. {@code errors} holds at most the first few hundred rejected
+ * lines; {@code rejected} is always the full count.
+ */
+public record ImportReportDto(
+        int imported,
+        int rejected,
+        List<LineError> errors
+) {
+
+    public record LineError(long line, String message) {
+    }
+}
@@ -1,5 +1,6 @@
 package md.usm.bookstore.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import md.usm.bookstore.model.OrderStatus;
 
 import java.time.LocalDateTime;
@@ -14,6 +15,10 @@ public record OrderDto(
 
         LocalDateTime createdAt,
 
-        OrderStatus orderStatus
+        OrderStatus orderStatus,
+
+        // entity version, also sent as the ETag of single-resource responses
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        Long version
 ) {
 }
@@ -0,0 +1,16 @@
+package md.usm.bookstore.dto;
+
+/**
+ * An autocomplete hit: a book title or an author name.
+ */
+public record SuggestionDto(
+        Type type,
+        Long id,
+        String text
+) {
+
+    public enum Type {
+        BOOK,
+        AUTHOR
+    }
+}
@@ -0,0 +1,8 @@
+package md.usm.bookstore.event;
+
+/**
+ * Published by {@code AuthorService} when an author is created, renamed or deleted, so that
+ * everything holding denormalized copies of that author or its books can refresh them.
+ */
+public record AuthorChangedEvent(Long authorId) {
+}
@@ -0,0 +1,23 @@
+package md.usm.bookstore.event;
+
+import md.usm.bookstore.dto.BookDto;
+
+/**
+ * Published by {@code BookService} whenever a book is written.
+ *
+ * @param book the book as it was saved, or {@code null} if it was deleted
+ */
+public record BookChangedEvent(Long bookId, BookDto book) {
+
+    public static BookChangedEvent saved(BookDto book) {
+        return new BookChangedEvent(book.id(), book);
+    }
+
+    public static BookChangedEvent deleted(Long bookId) {
+        return new BookChangedEvent(bookId, null);
+    }
+
+    public boolean isDeleted() {
+        return book == null;
+    }
+}
@@ -0,0 +1,12 @@
+package md.usm.bookstore.event;
+
+import md.usm.bookstore.dto.BookDto;
+
+import java.util.List;
+
+/**
+ * Published by {@code BookImportService} once per committed import batch, in place of a
+ * {@link BookChangedEvent} per row. Imported books are always new, so there is nothing to evict.
+ */
+public record BooksImportedEvent(List<BookDto> books) {
+}
@@ -0,0 +1,7 @@
+package md.usm.bookstore.event;
+
+/**
+ * Published by {@code CategoryService} when a category is created, renamed or deleted.
+ */
+public record CategoryChangedEvent(Long categoryId) {
+}
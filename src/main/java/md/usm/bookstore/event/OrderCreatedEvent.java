@@ -0,0 +1,9 @@
+package md.usm.bookstore.event;
+
+import java.util.List;
+
+/**
+ * Published by {@code OrderService} when an order is placed.
+ */
+public record OrderCreatedEvent(Long orderId, List<Long> bookIds) {
+}
@@ -0,0 +1,18 @@
+package md.usm.bookstore.index;
+
+/**
+ * Catalog filter for {@link FacetIndex}; {@code null} components do not restrict.
+ * The price range is inclusive on both ends.
+ */
+public record BookFilter(Long categoryId, Long authorId, Double minPrice, Double maxPrice) {
+
+    public boolean isEmpty() {
+        return categoryId == null && authorId == null && minPrice == null && maxPrice == null;
+    }
+
+    boolean acceptsPrice(Double price) {
+        if (minPrice == null && maxPrice == null) return true;
+        if (price == null) return false;
+        return (minPrice == null || price >= minPrice) && (maxPrice == null || price <= maxPrice);
+    }
+}
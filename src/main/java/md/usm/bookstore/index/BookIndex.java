@@ -0,0 +1,14 @@
+package md.usm.bookstore.index;
+
+import md.usm.bookstore.dto.BookDto;
+
+/**
+ * In-memory structure derived from the catalog. {@link BookIndexer} fills every bean of this type
+ * at startup and keeps it current from committed book writes.
+ */
+public interface BookIndex {
+
+    void index(BookDto book);
+
+    void remove(Long bookId);
+}
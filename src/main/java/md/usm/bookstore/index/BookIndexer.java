@@ -0,0 +1,107 @@
+package md.usm.bookstore.index;
+
+import md.usm.bookstore.dto.BookDto;
+import md.usm.bookstore.event.AuthorChangedEvent;
+import md.usm.bookstore.event.BookChangedEvent;
+import md.usm.bookstore.event.BooksImportedEvent;
+import md.usm.bookstore.event.CategoryChangedEvent;
+import md.usm.bookstore.model.Book;
+import md.usm.bookstore.repository.BookRepository;
+import md.usm.bookstore.utils.Mapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+@Component
+public class BookIndexer {
+
+    private static final Logger log = LoggerFactory.getLogger(BookIndexer.class);
+    private static final int LOAD_CHUNK_SIZE = 1000;
+
+    private final List<BookIndex> indexes;
+    private final BookRepository bookRepository;
+    private final Mapper mapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public BookIndexer(List<BookIndex> indexes, BookRepository bookRepository, Mapper mapper,
+                       PlatformTransactionManager transactionManager) {
+        this.indexes = indexes;
+        this.bookRepository = bookRepository;
+        this.mapper = mapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // change events arrive after commit, while the finished transaction is still bound to the thread
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAll() {
+        long lastId = 0;
+        int loaded = 0;
+        List<BookDto> chunk;
+        do {
+            long after = lastId;
+            chunk = readOnlyTransaction.execute(status -> loadChunk(after));
+            chunk.forEach(this::index);
+            loaded += chunk.size();
+            if (!chunk.isEmpty()) lastId = chunk.getLast().id();
+        } while (chunk.size() == LOAD_CHUNK_SIZE);
+
+        log.info("Indexed {} books into {} in-memory indexes", loaded, indexes.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.isDeleted()) {
+            indexes.forEach(index -> index.remove(event.bookId()));
+        } else {
+            index(event.book());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksImported(BooksImportedEvent event) {
+        event.books().forEach(this::index);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        reindex(readOnlyTransaction.execute(status -> bookRepository.findIdsByAuthorId(event.authorId())));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        reindex(readOnlyTransaction.execute(status -> bookRepository.findIdsByCategoryId(event.categoryId())));
+    }
+
+    private void reindex(List<Long> bookIds) {
+        for (int from = 0; from < bookIds.size(); from += LOAD_CHUNK_SIZE) {
+            List<Long> ids = bookIds.subList(from, Math.min(from + LOAD_CHUNK_SIZE, bookIds.size()));
+            readOnlyTransaction.execute(status -> bookRepository.findAllWithAuthorsByIdIn(ids).stream()
+                    .map(mapper::toDto)
+                    .toList())
+                    .forEach(this::index);
+        }
+    }
+
+    private void index(BookDto book) {
+        indexes.forEach(index -> index.index(book));
+    }
+
+    private List<BookDto> loadChunk(long lastId) {
+        List<Book> books = bookRepository.findNextPage(lastId, Limit.of(LOAD_CHUNK_SIZE));
+        if (!books.isEmpty()) {
+            bookRepository.fetchAuthorsForBooks(books);
+        }
+        return books.stream().map(mapper::toDto).toList();
+    }
+}
@@ -0,0 +1,259 @@
+package md.usm.bookstore.index;
+
+import md.usm.bookstore.dto.AuthorDto;
+import md.usm.bookstore.dto.BookDto;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over title, ISBN, author names and category name, ranked with BM25.
+ * <p>
+ * Documents are numbered densely and postings are kept as parallel {@code int} arrays per term.
+ * Removing or re-indexing a book only tombstones its document; the index is rebuilt from the live documents
+ * once tombstones outnumber them.
+ */
+@Component
+public class BookSearchIndex implements BookIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int MIN_TOMBSTONES_BEFORE_COMPACTION = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private int[][] postingDocs = new int[64][];
+    private int[][] postingFreqs = new int[64][];
+    private int[] postingSizes = new int[64];
+    private int[] documentFrequencies = new int[64];
+    private int termCount;
+
+    private BookDto[] documents = new BookDto[64];
+    private int[] documentLengths = new int[64];
+    private int[][] documentTerms = new int[64][];
+    private int documentCount;
+    private final BitSet deleted = new BitSet();
+    private final Map<Long, Integer> documentByBookId = new HashMap<>();
+    private long liveLength;
+
+    @Override
+    public void index(BookDto book) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(book.id());
+            addDocument(book);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(bookId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<BookDto> search(String query, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(TextNormalizer.tokenize(query));
+        if (queryTerms.isEmpty() || limit < 1) return List.of();
+
+        lock.readLock().lock();
+        try {
+            int liveDocuments = documentByBookId.size();
+            if (liveDocuments == 0) return List.of();
+
+            float averageLength = (float) liveLength / liveDocuments;
+            float[] scores = new float[documentCount];
+            int[] matched = new int[16];
+            int matchedCount = 0;
+
+            for (String term : queryTerms) {
+                Integer termId = termIds.get(term);
+                if (termId == null || documentFrequencies[termId] == 0) continue;
+
+                int df = documentFrequencies[termId];
+                float idf = (float) Math.log(1 + (liveDocuments - df + 0.5) / (df + 0.5));
+                int[] docs = postingDocs[termId];
+                int[] freqs = postingFreqs[termId];
+                for (int i = 0; i < postingSizes[termId]; i++) {
+                    int doc = docs[i];
+                    if (deleted.get(doc)) continue;
+
+                    float tf = freqs[i];
+                    float norm = K1 * (1 - B + B * documentLengths[doc] / averageLength);
+                    if (scores[doc] == 0) {
+                        if (matchedCount == matched.length) matched = Arrays.copyOf(matched, matchedCount * 2);
+                        matched[matchedCount++] = doc;
+                    }
+                    scores[doc] += idf * tf * (K1 + 1) / (tf + norm);
+                }
+            }
+
+            PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1,
+                    Comparator.<Integer>comparingDouble(doc -> scores[doc]).thenComparing(doc -> -doc));
+            for (int i = 0; i < matchedCount; i++) {
+                top.add(matched[i]);
+                if (top.size() > limit) top.poll();
+            }
+
+            BookDto[] results = new BookDto[top.size()];
+            for (int i = results.length - 1; i >= 0; i--) {
+                results[i] = documents[top.poll()];
+            }
+            return List.of(results);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public BookDto get(Long bookId) {
+        lock.readLock().lock();
+        try {
+            Integer doc = documentByBookId.get(bookId);
+            return doc == null ? null : documents[doc];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentByBookId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Documents held including tombstones, which {@link #size()} leaves out.
+     */
+    public int documentSlots() {
+        lock.readLock().lock();
+        try {
+            return documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addDocument(BookDto book) {
+        List<String> tokens = tokensOf(book);
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        tokens.forEach(token -> frequencies.merge(token, 1, Integer::sum));
+
+        int doc = documentCount++;
+        if (doc == documents.length) {
+            int capacity = doc * 2;
+            documents = Arrays.copyOf(documents, capacity);
+            documentLengths = Arrays.copyOf(documentLengths, capacity);
+            documentTerms = Arrays.copyOf(documentTerms, capacity);
+        }
+
+        int[] terms = new int[frequencies.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            int termId = termIds.computeIfAbsent(entry.getKey(), _ -> newTerm());
+            appendPosting(termId, doc, entry.getValue());
+            documentFrequencies[termId]++;
+            terms[i++] = termId;
+        }
+
+        documents[doc] = book;
+        documentLengths[doc] = tokens.size();
+        documentTerms[doc] = terms;
+        documentByBookId.put(book.id(), doc);
+        liveLength += tokens.size();
+    }
+
+    private void removeDocument(Long bookId) {
+        Integer doc = documentByBookId.remove(bookId);
+        if (doc == null) return;
+
+        for (int termId : documentTerms[doc]) {
+            documentFrequencies[termId]--;
+        }
+        liveLength -= documentLengths[doc];
+        deleted.set(doc);
+        documents[doc] = null;
+        documentTerms[doc] = null;
+    }
+
+    // updates tombstone the previous document too, so both write paths check
+    private void compactIfNeeded() {
+        if (deleted.cardinality() > Math.max(MIN_TOMBSTONES_BEFORE_COMPACTION, documentByBookId.size())) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        List<BookDto> live = new ArrayList<>(documentByBookId.size());
+        for (int doc = 0; doc < documentCount; doc++) {
+            if (!deleted.get(doc)) live.add(documents[doc]);
+        }
+
+        termIds.clear();
+        postingDocs = new int[64][];
+        postingFreqs = new int[64][];
+        postingSizes = new int[64];
+        documentFrequencies = new int[64];
+        termCount = 0;
+        documents = new BookDto[Math.max(64, live.size())];
+        documentLengths = new int[documents.length];
+        documentTerms = new int[documents.length][];
+        documentCount = 0;
+        deleted.clear();
+        documentByBookId.clear();
+        liveLength = 0;
+
+        live.forEach(this::addDocument);
+    }
+
+    private int newTerm() {
+        int termId = termCount++;
+        if (termId == postingDocs.length) {
+            int capacity = termId * 2;
+            postingDocs = Arrays.copyOf(postingDocs, capacity);
+            postingFreqs = Arrays.copyOf(postingFreqs, capacity);
+            postingSizes = Arrays.copyOf(postingSizes, capacity);
+            documentFrequencies = Arrays.copyOf(documentFrequencies, capacity);
+        }
+        postingDocs[termId] = new int[4];
+        postingFreqs[termId] = new int[4];
+        return termId;
+    }
+
+    private void appendPosting(int termId, int doc, int frequency) {
+        int size = postingSizes[termId];
+        if (size == postingDocs[termId].length) {
+            postingDocs[termId] = Arrays.copyOf(postingDocs[termId], size * 2);
+            postingFreqs[termId] = Arrays.copyOf(postingFreqs[termId], size * 2);
+        }
+        postingDocs[termId][size] = doc;
+        postingFreqs[termId][size] = frequency;
+        postingSizes[termId] = size + 1;
+    }
+
+    private static List<String> tokensOf(BookDto book) {
+        List<String> tokens = new ArrayList<>(TextNormalizer.tokenize(book.title()));
+        tokens.addAll(TextNormalizer.tokenize(book.isbn()));
+        if (book.authors() != null) {
+            for (AuthorDto author : book.authors()) {
+                tokens.addAll(TextNormalizer.tokenize(author.firstName()));
+                tokens.addAll(TextNormalizer.tokenize(author.lastName()));
+            }
+        }
+        if (book.category() != null) {
+            tokens.addAll(TextNormalizer.tokenize(book.category().name()));
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,265 @@
+package md.usm.bookstore.index;
+
+import md.usm.bookstore.dto.AuthorDto;
+import md.usm.bookstore.dto.BookDto;
+import md.usm.bookstore.dto.FacetCountDto;
+import md.usm.bookstore.dto.FacetedPageDto;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-category, per-author and per-price-bucket document sets with live counts, for filtered
+ * browsing without {@code GROUP BY} queries.
+ * <p>
+ * Each book keeps the document slot it was first indexed in, so slot order follows id order and
+ * pages come out in catalog order. Removed slots are tombstoned and reclaimed by rebuilding once
+ * they outnumber live ones. Counts for the unfiltered catalog are kept up to date on every write;
+ * counts for a filtered view are tallied over its matches.
+ */
+@Component
+public class FacetIndex implements BookIndex {
+
+    static final double[] PRICE_BOUNDS = {10, 20, 50, 100};
+    private static final String[] PRICE_BUCKETS = {"0-10", "10-20", "20-50", "50-100", "100+"};
+    private static final int MIN_TOMBSTONES_BEFORE_COMPACTION = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private BookDto[] documents = new BookDto[64];
+    private int documentCount;
+    private final BitSet live = new BitSet();
+    private final Map<Long, Integer> documentByBookId = new HashMap<>();
+
+    private final Map<Long, Facet> categories = new HashMap<>();
+    private final Map<Long, Facet> authors = new HashMap<>();
+    private final Facet[] prices = new Facet[PRICE_BUCKETS.length];
+
+    public FacetIndex() {
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = new Facet(PRICE_BUCKETS[i]);
+        }
+    }
+
+    @Override
+    public void index(BookDto book) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = documentByBookId.get(book.id());
+            if (doc == null) {
+                doc = newDocument();
+                documentByBookId.put(book.id(), doc);
+                live.set(doc);
+            } else {
+                unlink(doc, documents[doc]);
+            }
+            documents[doc] = book;
+            link(doc, book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = documentByBookId.remove(bookId);
+            if (doc == null) return;
+
+            unlink(doc, documents[doc]);
+            documents[doc] = null;
+            live.clear(doc);
+            if (documentCount - documentByBookId.size() > Math.max(MIN_TOMBSTONES_BEFORE_COMPACTION, documentByBookId.size())) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public FacetedPageDto<BookDto> query(BookFilter filter, int page, int size) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = (BitSet) live.clone();
+            if (filter.categoryId() != null) matches.and(docsOf(categories, filter.categoryId()));
+            if (filter.authorId() != null) matches.and(docsOf(authors, filter.authorId()));
+            if (filter.minPrice() != null || filter.maxPrice() != null) {
+                for (int doc = matches.nextSetBit(0); doc >= 0; doc = matches.nextSetBit(doc + 1)) {
+                    if (!filter.acceptsPrice(documents[doc].price())) matches.clear(doc);
+                }
+            }
+
+            List<BookDto> content = new ArrayList<>(size);
+            long skip = (long) page * size;
+            for (int doc = matches.nextSetBit(0); doc >= 0 && content.size() < size; doc = matches.nextSetBit(doc + 1)) {
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    content.add(documents[doc]);
+                }
+            }
+
+            return filter.isEmpty()
+                    ? new FacetedPageDto<>(content, page, size, documentByBookId.size(),
+                            counts(categories, null), counts(authors, null), priceCounts(null))
+                    : tally(matches, content, page, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentByBookId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private FacetedPageDto<BookDto> tally(BitSet matches, List<BookDto> content, int page, int size) {
+        Map<Long, Integer> categoryCounts = new HashMap<>();
+        Map<Long, Integer> authorCounts = new HashMap<>();
+        int[] priceCounts = new int[PRICE_BUCKETS.length];
+        for (int doc = matches.nextSetBit(0); doc >= 0; doc = matches.nextSetBit(doc + 1)) {
+            BookDto book = documents[doc];
+            if (book.category() != null) categoryCounts.merge(book.category().id(), 1, Integer::sum);
+            for (Long authorId : authorIds(book)) authorCounts.merge(authorId, 1, Integer::sum);
+            if (book.price() != null) priceCounts[bucketOf(book.price())]++;
+        }
+        return new FacetedPageDto<>(content, page, size, matches.cardinality(),
+                counts(categories, categoryCounts), counts(authors, authorCounts), priceCounts(priceCounts));
+    }
+
+    private static List<FacetCountDto> counts(Map<Long, Facet> facets, Map<Long, Integer> tallied) {
+        List<FacetCountDto> result = new ArrayList<>();
+        if (tallied == null) {
+            facets.forEach((id, facet) -> result.add(new FacetCountDto(id.toString(), facet.label, facet.count)));
+        } else {
+            tallied.forEach((id, count) -> result.add(new FacetCountDto(id.toString(), facets.get(id).label, count)));
+        }
+        result.sort(Comparator.comparingInt(FacetCountDto::count).reversed().thenComparing(FacetCountDto::label));
+        return result;
+    }
+
+    private List<FacetCountDto> priceCounts(int[] tallied) {
+        List<FacetCountDto> result = new ArrayList<>(PRICE_BUCKETS.length);
+        for (int i = 0; i < PRICE_BUCKETS.length; i++) {
+            int count = tallied == null ? prices[i].count : tallied[i];
+            if (count > 0) result.add(new FacetCountDto(PRICE_BUCKETS[i], PRICE_BUCKETS[i], count));
+        }
+        return result;
+    }
+
+    private void link(int doc, BookDto book) {
+        if (book.category() != null) {
+            categories.computeIfAbsent(book.category().id(), _ -> new Facet(book.category().name()))
+                    .add(doc, book.category().name());
+        }
+        if (book.authors() != null) {
+            for (AuthorDto author : book.authors()) {
+                String name = author.firstName() + " " + author.lastName();
+                authors.computeIfAbsent(author.id(), _ -> new Facet(name)).add(doc, name);
+            }
+        }
+        if (book.price() != null) {
+            prices[bucketOf(book.price())].add(doc, null);
+        }
+    }
+
+    private void unlink(int doc, BookDto book) {
+        if (book.category() != null) {
+            removeFrom(categories, book.category().id(), doc);
+        }
+        for (Long authorId : authorIds(book)) {
+            removeFrom(authors, authorId, doc);
+        }
+        if (book.price() != null) {
+            prices[bucketOf(book.price())].remove(doc);
+        }
+    }
+
+    private static void removeFrom(Map<Long, Facet> facets, Long id, int doc) {
+        Facet facet = facets.get(id);
+        if (facet != null && facet.remove(doc) == 0) {
+            facets.remove(id);
+        }
+    }
+
+    private static BitSet docsOf(Map<Long, Facet> facets, Long id) {
+        Facet facet = facets.get(id);
+        return facet == null ? new BitSet() : facet.docs;
+    }
+
+    private static List<Long> authorIds(BookDto book) {
+        return book.authors() == null ? List.of() : book.authors().stream().map(AuthorDto::id).distinct().toList();
+    }
+
+    static int bucketOf(double price) {
+        int bucket = 0;
+        while (bucket < PRICE_BOUNDS.length && price >= PRICE_BOUNDS[bucket]) bucket++;
+        return bucket;
+    }
+
+    private int newDocument() {
+        int doc = documentCount++;
+        if (doc == documents.length) {
+            documents = Arrays.copyOf(documents, doc * 2);
+        }
+        return doc;
+    }
+
+    private void compact() {
+        List<BookDto> remaining = new ArrayList<>(documentByBookId.size());
+        for (int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) {
+            remaining.add(documents[doc]);
+        }
+
+        documents = new BookDto[Math.max(64, remaining.size())];
+        documentCount = 0;
+        live.clear();
+        documentByBookId.clear();
+        categories.clear();
+        authors.clear();
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = new Facet(PRICE_BUCKETS[i]);
+        }
+
+        for (BookDto book : remaining) {
+            int doc = newDocument();
+            documentByBookId.put(book.id(), doc);
+            live.set(doc);
+            documents[doc] = book;
+            link(doc, book);
+        }
+    }
+
+    private static final class Facet {
+
+        private final BitSet docs = new BitSet();
+        private String label;
+        private int count;
+
+        Facet(String label) {
+            this.label = label;
+        }
+
+        void add(int doc, String latestLabel) {
+            if (latestLabel != null) label = latestLabel;
+            if (!docs.get(doc)) {
+                docs.set(doc);
+                count++;
+            }
+        }
+
+        int remove(int doc) {
+            if (docs.get(doc)) {
+                docs.clear(doc);
+                count--;
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package md.usm.bookstore.index;
+
+import java.util.List;
+
+/**
+ * In-memory structure derived from what was ordered. {@link OrderIndexer} replays every existing
+ * order into each bean of this type at startup and then feeds it newly placed orders.
+ */
+public interface OrderIndex {
+
+    void record(List<Long> bookIds);
+}
@@ -0,0 +1,102 @@
+package md.usm.bookstore.index;
+
+import md.usm.bookstore.event.OrderCreatedEvent;
+import md.usm.bookstore.repository.OrderRepository;
+import md.usm.bookstore.repository.projection.OrderBookLink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class OrderIndexer {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderIndexer.class);
+    private static final int LOAD_CHUNK_SIZE = 1000;
+
+    private final List<OrderIndex> indexes;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    // orders counted so far while the startup replay runs, null once it is done; the replay starts
+    // after the web server does, so an order placed meanwhile can reach both its event and a chunk
+    private LongIntHashMap countedDuringReplay = new LongIntHashMap();
+
+    public OrderIndexer(List<OrderIndex> indexes, OrderRepository orderRepository,
+                        PlatformTransactionManager transactionManager) {
+        this.indexes = indexes;
+        this.orderRepository = orderRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAll() {
+        long lastId = 0;
+        int loaded = 0;
+        List<Long> orderIds;
+        do {
+            long after = lastId;
+            orderIds = readOnlyTransaction.execute(status -> orderRepository.findNextIds(after, Limit.of(LOAD_CHUNK_SIZE)));
+            if (orderIds.isEmpty()) break;
+
+            List<Long> chunk = orderIds;
+            replay(readOnlyTransaction.execute(status -> orderRepository.findBookIdLinks(chunk)));
+            loaded += orderIds.size();
+            lastId = orderIds.getLast();
+        } while (orderIds.size() == LOAD_CHUNK_SIZE);
+
+        synchronized (this) {
+            countedDuringReplay = null;
+        }
+        log.info("Replayed {} orders into {} in-memory indexes", loaded, indexes.size());
+    }
+
+    @TransactionalEventListener
+    public void onOrderCreated(OrderCreatedEvent event) {
+        if (firstCount(event.orderId())) {
+            record(event.bookIds());
+        }
+    }
+
+    /**
+     * Links come ordered by order id, so each order's books are consecutive.
+     */
+    private void replay(List<OrderBookLink> links) {
+        List<Long> books = new ArrayList<>();
+        Long current = null;
+        for (OrderBookLink link : links) {
+            if (!link.orderId().equals(current)) {
+                if (current != null && firstCount(current)) record(books);
+                books = new ArrayList<>();
+                current = link.orderId();
+            }
+            books.add(link.bookId());
+        }
+        if (current != null && firstCount(current)) record(books);
+    }
+
+    /**
+     * Whether {@code orderId} has not been counted yet; always true once the replay is done, as
+     * after that only events record orders.
+     */
+    private synchronized boolean firstCount(long orderId) {
+        if (countedDuringReplay == null) return true;
+        if (countedDuringReplay.get(orderId) != 0) return false;
+        countedDuringReplay.addTo(orderId, 1);
+        return true;
+    }
+
+    private void record(List<Long> bookIds) {
+        if (bookIds.isEmpty()) return;
+        indexes.forEach(index -> index.record(bookIds));
+    }
+}
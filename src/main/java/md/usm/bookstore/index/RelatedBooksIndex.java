@@ -0,0 +1,103 @@
+package md.usm.bookstore.index;
+
+import md.usm.bookstore.dto.BookDto;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * "Frequently bought together": a sparse book-by-book matrix counting how many orders contained
+ * both books. Each row is a {@link LongIntHashMap}, so a row costs two primitive arrays rather
+ * than a boxed entry per neighbour.
+ * <p>
+ * The matrix is symmetric, so deleting a book drops its row and removes it from the row of every
+ * book it was ordered with; a book whose top neighbours are deleted ranks the next live ones.
+ */
+@Component
+public class RelatedBooksIndex implements BookIndex, OrderIndex {
+
+    public static final int MAX_RELATED = 20;
+    // pairs grow quadratically with the basket, and bulk orders say little about taste
+    private static final int MAX_BOOKS_PER_ORDER = 50;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, LongIntHashMap> rows = new HashMap<>();
+
+    @Override
+    public void index(BookDto book) {
+        // co-occurrence comes from orders only
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            LongIntHashMap row = rows.remove(bookId);
+            if (row == null) return;
+            row.forEach((other, count) -> {
+                LongIntHashMap neighbour = rows.get(other);
+                if (neighbour == null) return;
+                neighbour.remove(bookId);
+                if (neighbour.size() == 0) rows.remove(other);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void record(List<Long> bookIds) {
+        long[] distinct = bookIds.stream().distinct().limit(MAX_BOOKS_PER_ORDER).mapToLong(Long::longValue).toArray();
+        if (distinct.length < 2) return;
+
+        lock.writeLock().lock();
+        try {
+            for (long book : distinct) {
+                LongIntHashMap row = rows.computeIfAbsent(book, id -> new LongIntHashMap(distinct.length));
+                for (long other : distinct) {
+                    if (other != book) row.addTo(other, 1);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the books most often ordered together with {@code bookId}, most frequent first,
+     * ties broken by id.
+     */
+    public List<Long> related(Long bookId, int limit) {
+        if (limit < 1) return List.of();
+        limit = Math.min(limit, MAX_RELATED);
+
+        PriorityQueue<long[]> top = new PriorityQueue<>(limit + 1, RelatedBooksIndex::weaker);
+        lock.readLock().lock();
+        try {
+            LongIntHashMap row = rows.get(bookId);
+            if (row == null) return List.of();
+            int capacity = limit;
+            row.forEach((other, count) -> {
+                top.add(new long[]{other, count});
+                if (top.size() > capacity) top.poll();
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Long[] ids = new Long[top.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = top.poll()[0];
+        }
+        return Arrays.asList(ids);
+    }
+
+    /**
+     * Heap order: the entry that should be evicted first comes first.
+     */
+    private static int weaker(long[] a, long[] b) {
+        int byCount = Long.compare(a[1], b[1]);
+        return byCount != 0 ? byCount : Long.compare(b[0], a[0]);
+    }
+}
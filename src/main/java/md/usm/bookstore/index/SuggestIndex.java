@@ -0,0 +1,218 @@
+package md.usm.bookstore.index;
+
+import md.usm.bookstore.dto.AuthorDto;
+import md.usm.bookstore.dto.BookDto;
+import md.usm.bookstore.dto.SuggestionDto;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prefix lookup over book titles and author names, ranked by how often the book (or any book of
+ * the author) was ordered.
+ * <p>
+ * Every word of a name starts a key, so "lord" finds "The Lord of the Rings". Keys live in one
+ * concurrent skip list ordered by key, so a prefix is a range found in logarithmic time without a
+ * lock. A book write inserts and removes only the keys of that book and of authors that gained
+ * or lost their last book. One- and two-letter prefixes match large ranges, so their top
+ * {@value #MAX_SUGGESTIONS} are cached until the next write or order.
+ */
+@Component
+public class SuggestIndex implements BookIndex, OrderIndex {
+
+    public static final int MAX_SUGGESTIONS = 20;
+    private static final int CACHED_PREFIX_LENGTH = 2;
+    private static final int MAX_KEYS_PER_NAME = 8;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, BookDto> books = new HashMap<>();
+    private final Map<Long, Integer> bookOrders = new HashMap<>();
+    private final Map<Long, Integer> authorOrders = new HashMap<>();
+
+    private final Map<Long, String> authorNames = new HashMap<>();
+    private final Map<Long, Integer> authorBookCounts = new HashMap<>();
+
+    private final ConcurrentNavigableMap<Key, String> keys = new ConcurrentSkipListMap<>();
+    private final Map<String, List<SuggestionDto>> shortPrefixes = new ConcurrentHashMap<>();
+    private volatile long generation;
+
+    @Override
+    public void index(BookDto book) {
+        lock.writeLock().lock();
+        try {
+            BookDto previous = books.put(book.id(), book);
+            if (previous != null) {
+                addAuthorOrders(previous, -bookOrders.getOrDefault(book.id(), 0));
+                removeKeys(previous);
+            }
+            addAuthorOrders(book, bookOrders.getOrDefault(book.id(), 0));
+            addKeys(book);
+            changed();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            BookDto previous = books.remove(bookId);
+            if (previous != null) {
+                addAuthorOrders(previous, -bookOrders.getOrDefault(bookId, 0));
+                removeKeys(previous);
+                changed();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void record(List<Long> bookIds) {
+        lock.writeLock().lock();
+        try {
+            for (Long bookId : new HashSet<>(bookIds)) {
+                bookOrders.merge(bookId, 1, Integer::sum);
+                BookDto book = books.get(bookId);
+                if (book != null) addAuthorOrders(book, 1);
+            }
+            generation++;
+            shortPrefixes.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<SuggestionDto> suggest(String prefix, int limit) {
+        String normalized = String.join(" ", TextNormalizer.tokenize(prefix));
+        if (normalized.isEmpty() || limit < 1) return List.of();
+        limit = Math.min(limit, MAX_SUGGESTIONS);
+
+        if (normalized.length() <= CACHED_PREFIX_LENGTH) {
+            List<SuggestionDto> top = shortPrefixes.get(normalized);
+            if (top == null) {
+                long seen = generation;
+                top = rank(normalized, MAX_SUGGESTIONS);
+                // don't cache a ranking that a concurrent write has already outdated
+                if (generation == seen) shortPrefixes.put(normalized, top);
+            }
+            return top.subList(0, Math.min(limit, top.size()));
+        }
+        return rank(normalized, limit);
+    }
+
+    private List<SuggestionDto> rank(String prefix, int limit) {
+        Map<Long, String> candidates = new HashMap<>();
+        keys.subMap(new Key(prefix, Long.MIN_VALUE), new Key(prefix + Character.MAX_VALUE, Long.MIN_VALUE))
+                .forEach((key, text) -> candidates.putIfAbsent(key.ref(), text));
+
+        lock.readLock().lock();
+        try {
+            return candidates.entrySet().stream()
+                    .sorted(Comparator.<Map.Entry<Long, String>>comparingInt(e -> -orders(e.getKey()))
+                            .thenComparingInt(e -> e.getValue().length())
+                            .thenComparing(Map.Entry::getValue))
+                    .limit(limit)
+                    .map(e -> new SuggestionDto(isAuthor(e.getKey()) ? SuggestionDto.Type.AUTHOR : SuggestionDto.Type.BOOK,
+                            idOf(e.getKey()), e.getValue()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addKeys(BookDto book) {
+        putKeys(book.title(), bookRef(book.id()));
+        if (book.authors() == null) return;
+        for (AuthorDto author : book.authors()) {
+            String name = author.firstName() + " " + author.lastName();
+            authorBookCounts.merge(author.id(), 1, Integer::sum);
+            String previousName = authorNames.put(author.id(), name);
+            if (!name.equals(previousName)) {
+                if (previousName != null) removeKeys(previousName, authorRef(author.id()));
+                putKeys(name, authorRef(author.id()));
+            }
+        }
+    }
+
+    private void removeKeys(BookDto book) {
+        removeKeys(book.title(), bookRef(book.id()));
+        if (book.authors() == null) return;
+        for (AuthorDto author : book.authors()) {
+            if (authorBookCounts.merge(author.id(), -1, Integer::sum) <= 0) {
+                authorBookCounts.remove(author.id());
+                String name = authorNames.remove(author.id());
+                if (name != null) removeKeys(name, authorRef(author.id()));
+            }
+        }
+    }
+
+    private void putKeys(String text, long ref) {
+        for (String key : keysOf(text)) {
+            keys.put(new Key(key, ref), text);
+        }
+    }
+
+    private void removeKeys(String text, long ref) {
+        for (String key : keysOf(text)) {
+            keys.remove(new Key(key, ref));
+        }
+    }
+
+    private static List<String> keysOf(String text) {
+        List<String> words = TextNormalizer.tokenize(text);
+        List<String> keys = new ArrayList<>(Math.min(words.size(), MAX_KEYS_PER_NAME));
+        for (int i = 0; i < Math.min(words.size(), MAX_KEYS_PER_NAME); i++) {
+            keys.add(String.join(" ", words.subList(i, words.size())));
+        }
+        return keys;
+    }
+
+    private void addAuthorOrders(BookDto book, int delta) {
+        if (delta == 0 || book.authors() == null) return;
+        for (AuthorDto author : book.authors()) {
+            authorOrders.merge(author.id(), delta, Integer::sum);
+        }
+    }
+
+    private void changed() {
+        generation++;
+        shortPrefixes.clear();
+    }
+
+    private int orders(long ref) {
+        return isAuthor(ref)
+                ? authorOrders.getOrDefault(idOf(ref), 0)
+                : bookOrders.getOrDefault(idOf(ref), 0);
+    }
+
+    private static long bookRef(Long id) {
+        return id << 1;
+    }
+
+    private static long authorRef(Long id) {
+        return id << 1 | 1;
+    }
+
+    private static boolean isAuthor(long ref) {
+        return (ref & 1) == 1;
+    }
+
+    private static long idOf(long ref) {
+        return ref >>> 1;
+    }
+
+    private record Key(String key, long ref) implements Comparable<Key> {
+
+        @Override
+        public int compareTo(Key other) {
+            int byKey = key.compareTo(other.key);
+            return byKey != 0 ? byKey : Long.compare(ref, other.ref);
+        }
+    }
+}
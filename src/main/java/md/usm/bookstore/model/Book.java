@@ -7,7 +7,7 @@ import java.util.List;
 import java.util.Objects;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = @Index(name = "idx_books_category_id", columnList = "category_id"))
 public class Book extends BaseEntity {
 
     private String title;
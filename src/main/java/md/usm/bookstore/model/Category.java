@@ -1,9 +1,11 @@
 package md.usm.bookstore.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,6 +16,11 @@ public class Category extends BaseEntity {
 
     private String name;
 
+    // kept current by UPDATE statements from the book write paths, never written through the entity
+    @Column(nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long bookCount;
+
     @OneToMany(mappedBy = "category", fetch = FetchType.LAZY)
     private List<Book> books = new ArrayList<>();
 
@@ -25,6 +32,10 @@ public class Category extends BaseEntity {
         this.name = name;
     }
 
+    public long getBookCount() {
+        return bookCount;
+    }
+
     public List<Book> getBooks() {
         return books;
     }
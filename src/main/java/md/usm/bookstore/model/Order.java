@@ -6,7 +6,7 @@ import java.time.LocalDateTime;
 import java.util.Set;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_user_date", columnList = "user_id, order_date DESC, id DESC"))
 public class Order extends BaseEntity {
 
     private LocalDateTime orderDate;
@@ -0,0 +1,34 @@
+package md.usm.bookstore.model.id;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Sequence generator whose increment comes from the {@value #ALLOCATION_SIZE_SETTING} setting
+ * instead of being fixed in an annotation.
+ * <p>
+ * Unlike identity columns, sequences let Hibernate assign ids before the insert, so inserts can be
+ * grouped into JDBC batches. With the pooled optimizer only one sequence call is needed per
+ * {@code allocation_size} rows.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String ALLOCATION_SIZE_SETTING = "bookstore.id.allocation_size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        int allocationSize = serviceRegistry.requireService(ConfigurationService.class)
+                .getSetting(ALLOCATION_SIZE_SETTING, StandardConverters.INTEGER, DEFAULT_ALLOCATION_SIZE);
+
+        parameters.putIfAbsent(INCREMENT_PARAM, String.valueOf(allocationSize));
+        parameters.putIfAbsent(OPT_PARAM, "pooled");
+        super.configure(type, parameters, serviceRegistry);
+    }
+}
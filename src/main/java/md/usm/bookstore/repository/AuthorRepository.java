@@ -1,6 +1,11 @@
 package md.usm.bookstore.repository;
 
 import md.usm.bookstore.model.Author;
+import md.usm.bookstore.repository.projection.AuthorRow;
+import md.usm.bookstore.repository.projection.AuthorSummaryRow;
+import md.usm.bookstore.repository.projection.BookLink;
+import md.usm.bookstore.repository.projection.TitleLink;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -8,13 +13,37 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface AuthorRepository extends JpaRepository<Author, Long> {
 
-    @Query("SELECT a FROM Author a")
-    Page<Author> findAllAuthors(Pageable pageable);
+    @Query(value = "SELECT new md.usm.bookstore.repository.projection.AuthorRow(a.id, a.firstName, a.lastName, a.createdAt) FROM Author a",
+            countQuery = "SELECT count(a) FROM Author a")
+    Page<AuthorRow> findAllRows(Pageable pageable);
+
+    @Query(value = "SELECT new md.usm.bookstore.repository.projection.AuthorSummaryRow(a.id, a.firstName, a.lastName, a.createdAt, count(b)) " +
+            "FROM Author a LEFT JOIN a.books b GROUP BY a.id, a.firstName, a.lastName, a.createdAt",
+            countQuery = "SELECT count(a) FROM Author a")
+    Page<AuthorSummaryRow> findAllSummaries(Pageable pageable);
+
+    /**
+     * The first {@code titles} titles of each author in alphabetical order, ranked in the database
+     * so that a prolific author costs no more rows than any other.
+     */
+    @Query("SELECT new md.usm.bookstore.repository.projection.TitleLink(t.authorId, t.title) FROM (" +
+            "SELECT a.id AS authorId, b.title AS title, row_number() OVER (PARTITION BY a.id ORDER BY b.title, b.id) AS position " +
+            "FROM Author a JOIN a.books b WHERE a.id IN :authorIds) t " +
+            "WHERE t.position <= :titles ORDER BY t.authorId, t.position")
+    List<TitleLink> findFirstTitles(@Param("authorIds") Collection<Long> authorIds, @Param("titles") int titles);
+
+    @Query("SELECT new md.usm.bookstore.repository.projection.BookLink(a.id, b.id, b.title, b.isbn, b.price, b.createdAt) " +
+            "FROM Author a JOIN a.books b WHERE a.id IN :authorIds")
+    List<BookLink> findBookLinks(@Param("authorIds") Collection<Long> authorIds);
+
+    @Query("SELECT a FROM Author a WHERE a.id > :lastId ORDER BY a.id")
+    List<Author> findNextPage(@Param("lastId") Long lastId, Limit limit);
 
     @Query("SELECT a FROM Author a LEFT JOIN FETCH a.books WHERE a IN :authors")
     List<Author> fetchBooksForAuthors(@Param("authors") List<Author> authors);
@@ -22,7 +51,4 @@ public interface AuthorRepository extends JpaRepository<Author, Long> {
     @Query("SELECT a FROM Author a LEFT JOIN FETCH a.books WHERE a.id = :id")
     Author findByIdWithBooks(@Param("id") Long id);
 
-    @Query("SELECT a FROM Author a JOIN a.books b WHERE b.id = :bookId")
-    List<Author> findAllByBookId(@Param("bookId") Long bookId);
-
 }
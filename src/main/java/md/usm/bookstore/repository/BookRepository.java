@@ -1,17 +1,90 @@
 package md.usm.bookstore.repository;
 
+import jakarta.persistence.QueryHint;
 import md.usm.bookstore.model.Book;
+import md.usm.bookstore.repository.projection.AuthorLink;
+import md.usm.bookstore.repository.projection.BookRow;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
 
+    int STREAM_FETCH_SIZE = 500;
+
     @Query("SELECT b FROM Book b LEFT JOIN FETCH b.authors WHERE b.id = :id")
     Optional<Book> findByIdWithAuthors(@Param("id") Long id);
 
+    @Query(value = "SELECT new md.usm.bookstore.repository.projection.BookRow(b.id, b.title, b.isbn, b.price, b.createdAt, b.version, c.id, c.name, c.createdAt) " +
+            "FROM Book b LEFT JOIN b.category c",
+            countQuery = "SELECT count(b) FROM Book b")
+    Page<BookRow> findAllRows(Pageable pageable);
+
+    @Query(value = "SELECT new md.usm.bookstore.repository.projection.BookRow(b.id, b.title, b.isbn, b.price, b.createdAt, b.version, c.id, c.name, c.createdAt) " +
+            "FROM Book b JOIN b.authors a LEFT JOIN b.category c WHERE a.id = :authorId",
+            countQuery = "SELECT count(b) FROM Book b JOIN b.authors a WHERE a.id = :authorId")
+    Page<BookRow> findRowsByAuthorId(@Param("authorId") Long authorId, Pageable pageable);
+
+    @Query(value = "SELECT new md.usm.bookstore.repository.projection.BookRow(b.id, b.title, b.isbn, b.price, b.createdAt, b.version, c.id, c.name, c.createdAt) " +
+            "FROM Book b JOIN b.category c WHERE c.id = :categoryId",
+            countQuery = "SELECT count(b) FROM Book b WHERE b.category.id = :categoryId")
+    Page<BookRow> findRowsByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new md.usm.bookstore.repository.projection.BookRow(b.id, b.title, b.isbn, b.price, b.createdAt, b.version, c.id, c.name, c.createdAt) " +
+            "FROM Book b LEFT JOIN b.category c ORDER BY b.id")
+    Stream<BookRow> streamAllRows();
+
+    @Query("SELECT new md.usm.bookstore.repository.projection.AuthorLink(b.id, a.id, a.firstName, a.lastName, a.createdAt) " +
+            "FROM Book b JOIN b.authors a WHERE b.id IN :bookIds")
+    List<AuthorLink> findAuthorLinks(@Param("bookIds") Collection<Long> bookIds);
+
+    @Query("SELECT b FROM Book b LEFT JOIN FETCH b.category WHERE b.id > :lastId ORDER BY b.id")
+    List<Book> findNextPage(@Param("lastId") Long lastId, Limit limit);
+
+    @Query("SELECT DISTINCT b FROM Book b LEFT JOIN FETCH b.authors WHERE b IN :books")
+    List<Book> fetchAuthorsForBooks(@Param("books") List<Book> books);
+
+    @Query("SELECT DISTINCT b FROM Book b LEFT JOIN FETCH b.category LEFT JOIN FETCH b.authors WHERE b.id IN :ids")
+    List<Book> findAllWithAuthorsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Version bump for changes written around the entity, such as its author links: no row matched
+     * means another update committed since {@code version} was read.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Book b SET b.version = b.version + 1 WHERE b.id = :id AND b.version = :version")
+    int incrementVersion(@Param("id") Long id, @Param("version") long version);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO authors_books (book_id, author_id) SELECT :bookId, a.id FROM authors a WHERE a.id IN (:authorIds)",
+            nativeQuery = true)
+    int linkAuthors(@Param("bookId") Long bookId, @Param("authorIds") Collection<Long> authorIds);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM authors_books WHERE book_id = :bookId AND author_id IN (:authorIds)", nativeQuery = true)
+    int unlinkAuthors(@Param("bookId") Long bookId, @Param("authorIds") Collection<Long> authorIds);
+
+    @Query("SELECT b.id FROM Book b JOIN b.authors a WHERE a.id = :authorId")
+    List<Long> findIdsByAuthorId(@Param("authorId") Long authorId);
+
+    @Query("SELECT b.id FROM Book b WHERE b.category.id = :categoryId")
+    List<Long> findIdsByCategoryId(@Param("categoryId") Long categoryId);
+
 }
@@ -1,9 +1,12 @@
 package md.usm.bookstore.repository;
 
 import md.usm.bookstore.model.Category;
+import md.usm.bookstore.repository.projection.CategoryRow;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -13,12 +16,25 @@ import java.util.List;
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
 
-    @Query("SELECT c FROM Category c")
-    Page<Category> findAllCategories(Pageable pageable);
+    @Query(value = "SELECT new md.usm.bookstore.repository.projection.CategoryRow(c.id, c.name, c.bookCount, c.createdAt) FROM Category c",
+            countQuery = "SELECT count(c) FROM Category c")
+    Page<CategoryRow> findAllRows(Pageable pageable);
 
-    @Query("SELECT c FROM Category c LEFT JOIN FETCH c.books WHERE c IN :categories")
-    List<Category> fetchBooksForCategories(@Param("categories") List<Category> categories);
+    @Query("SELECT c FROM Category c WHERE c.id > :lastId ORDER BY c.id")
+    List<Category> findNextPage(@Param("lastId") Long lastId, Limit limit);
 
-    @Query("SELECT c FROM Category c LEFT JOIN FETCH c.books WHERE c.id = :id")
-    Category findByIdWithBooks(@Param("id") Long id);
+    /**
+     * Adds {@code delta} to the stored book count in the database, so concurrent writers never
+     * overwrite each other's increments.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Category c SET c.bookCount = c.bookCount + :delta WHERE c.id = :id")
+    int addToBookCount(@Param("id") Long id, @Param("delta") long delta);
+
+    /**
+     * Recomputes every stored count from the books table; runs in the caller's transaction.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Category c SET c.bookCount = (SELECT count(b) FROM Book b WHERE b.category = c)")
+    int recountBooks();
 }
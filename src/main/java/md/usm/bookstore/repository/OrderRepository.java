@@ -1,13 +1,21 @@
 package md.usm.bookstore.repository;
 
 import md.usm.bookstore.model.Order;
+import md.usm.bookstore.repository.projection.BookLink;
+import md.usm.bookstore.repository.projection.OrderBookLink;
+import md.usm.bookstore.repository.projection.OrderBookRow;
+import md.usm.bookstore.repository.projection.OrderRow;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,11 +25,50 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o LEFT JOIN FETCH o.books LEFT JOIN FETCH o.user WHERE o.id = :id")
     Order findByIdWithBooksAndUser(@Param("id") Long id);
 
-    @Query("SELECT o FROM Order o WHERE o.user.id = :userId")
-    Page<Order> findByUserId(@Param("userId") Long userId, Pageable pageable);
+    @Query(value = "SELECT new md.usm.bookstore.repository.projection.OrderRow(o.id, o.orderDate, o.createdAt, o.status) " +
+            "FROM Order o WHERE o.user.id = :userId ORDER BY o.orderDate DESC, o.id DESC",
+            countQuery = "SELECT count(o) FROM Order o WHERE o.user.id = :userId")
+    Page<OrderRow> findRowsByUserId(@Param("userId") Long userId, Pageable pageable);
 
-    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.books WHERE o IN :orders")
-    List<Order> findAllWithBooks(@Param("orders") List<Order> orders);
+    /**
+     * The newest {@code limit} orders of a user together with their books, in one statement: the
+     * subquery walks {@code idx_orders_user_date} and the outer query joins only the orders it picked.
+     */
+    @Query("SELECT new md.usm.bookstore.repository.projection.OrderBookRow(o.id, o.orderDate, o.createdAt, o.status, b.id, b.title, b.isbn, b.price, b.createdAt) " +
+            "FROM Order o LEFT JOIN o.books b WHERE o.id IN (" +
+            "SELECT p.id FROM Order p WHERE p.user.id = :userId ORDER BY p.orderDate DESC, p.id DESC LIMIT :limit) " +
+            "ORDER BY o.orderDate DESC, o.id DESC")
+    List<OrderBookRow> findHistory(@Param("userId") Long userId, @Param("limit") int limit);
+
+    /**
+     * Same as {@link #findHistory} for the orders placed before {@code (date, id)}.
+     */
+    @Query("SELECT new md.usm.bookstore.repository.projection.OrderBookRow(o.id, o.orderDate, o.createdAt, o.status, b.id, b.title, b.isbn, b.price, b.createdAt) " +
+            "FROM Order o LEFT JOIN o.books b WHERE o.id IN (" +
+            "SELECT p.id FROM Order p WHERE p.user.id = :userId AND (p.orderDate, p.id) < (:date, :id) " +
+            "ORDER BY p.orderDate DESC, p.id DESC LIMIT :limit) " +
+            "ORDER BY o.orderDate DESC, o.id DESC")
+    List<OrderBookRow> findHistoryBefore(@Param("userId") Long userId, @Param("date") LocalDateTime date,
+                                         @Param("id") Long id, @Param("limit") int limit);
+
+    @Query(value = "SELECT new md.usm.bookstore.repository.projection.OrderRow(o.id, o.orderDate, o.createdAt, o.status) FROM Order o ORDER BY o.id",
+            countQuery = "SELECT count(o) FROM Order o")
+    Page<OrderRow> findAllRows(Pageable pageable);
+
+    @Query("SELECT new md.usm.bookstore.repository.projection.BookLink(o.id, b.id, b.title, b.isbn, b.price, b.createdAt) " +
+            "FROM Order o JOIN o.books b WHERE o.id IN :orderIds")
+    List<BookLink> findBookLinks(@Param("orderIds") Collection<Long> orderIds);
+
+    @Query("SELECT o.id FROM Order o WHERE o.id > :lastId ORDER BY o.id")
+    List<Long> findNextIds(@Param("lastId") Long lastId, Limit limit);
+
+    @Query("SELECT new md.usm.bookstore.repository.projection.OrderBookLink(o.id, b.id) " +
+            "FROM Order o JOIN o.books b WHERE o.id IN :orderIds ORDER BY o.id")
+    List<OrderBookLink> findBookIdLinks(@Param("orderIds") Collection<Long> orderIds);
+
+    @Query("SELECT new md.usm.bookstore.repository.projection.OrderRow(o.id, o.orderDate, o.createdAt, o.status) " +
+            "FROM Order o WHERE o.id > :lastId ORDER BY o.id")
+    List<OrderRow> findNextRows(@Param("lastId") Long lastId, Limit limit);
 
     @Query("SELECT count(o) FROM Order o WHERE o.user.id = :userId")
     long countByUserId(@Param("userId") Long userId);
@@ -29,4 +76,18 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o JOIN FETCH o.user WHERE o.id = :id")
     Optional<Order> findByIdWithUser(@Param("id") Long id);
 
+    /**
+     * Moves the order from {@code CREATED} to {@code PAYED} if it belongs to {@code userId}, as one
+     * compare-and-set statement: no row matched means it is missing, someone else's or already payed.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Order o SET o.status = md.usm.bookstore.model.OrderStatus.PAYED, o.updatedAt = :now, o.version = o.version + 1 " +
+            "WHERE o.id = :id AND o.user.id = :userId AND o.status = md.usm.bookstore.model.OrderStatus.CREATED")
+    int payIfCreatedByUser(@Param("id") Long id, @Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Order o SET o.status = md.usm.bookstore.model.OrderStatus.PAYED, o.updatedAt = :now, o.version = o.version + 1 " +
+            "WHERE o.id = :id AND o.status = md.usm.bookstore.model.OrderStatus.CREATED")
+    int payIfCreated(@Param("id") Long id, @Param("now") LocalDateTime now);
+
 }
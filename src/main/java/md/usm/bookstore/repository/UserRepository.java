@@ -1,12 +1,19 @@
 package md.usm.bookstore.repository;
 
 import md.usm.bookstore.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
+
+    @Query("SELECT u FROM User u WHERE u.id > :lastId ORDER BY u.id")
+    List<User> findNextPage(@Param("lastId") Long lastId, Limit limit);
 }
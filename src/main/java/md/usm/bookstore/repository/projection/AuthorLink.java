@@ -0,0 +1,15 @@
+package md.usm.bookstore.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * An author of the book {@code bookId}.
+ */
+public record AuthorLink(
+        Long bookId,
+        Long id,
+        String firstName,
+        String lastName,
+        LocalDateTime createdAt
+) {
+}
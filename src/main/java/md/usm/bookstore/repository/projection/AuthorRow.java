@@ -0,0 +1,11 @@
+package md.usm.bookstore.repository.projection;
+
+import java.time.LocalDateTime;
+
+public record AuthorRow(
+        Long id,
+        String firstName,
+        String lastName,
+        LocalDateTime createdAt
+) {
+}
@@ -0,0 +1,12 @@
+package md.usm.bookstore.repository.projection;
+
+import java.time.LocalDateTime;
+
+public record AuthorSummaryRow(
+        Long id,
+        String firstName,
+        String lastName,
+        LocalDateTime createdAt,
+        Long bookCount
+) {
+}
@@ -0,0 +1,16 @@
+package md.usm.bookstore.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * A book attached to the author, category or order {@code ownerId}.
+ */
+public record BookLink(
+        Long ownerId,
+        Long id,
+        String title,
+        String isbn,
+        Double price,
+        LocalDateTime createdAt
+) {
+}
@@ -0,0 +1,19 @@
+package md.usm.bookstore.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * A book's own columns plus its category, read without hydrating either entity.
+ */
+public record BookRow(
+        Long id,
+        String title,
+        String isbn,
+        Double price,
+        LocalDateTime createdAt,
+        Long version,
+        Long categoryId,
+        String categoryName,
+        LocalDateTime categoryCreatedAt
+) {
+}
@@ -0,0 +1,11 @@
+package md.usm.bookstore.repository.projection;
+
+import java.time.LocalDateTime;
+
+public record CategoryRow(
+        Long id,
+        String name,
+        Long bookCount,
+        LocalDateTime createdAt
+) {
+}
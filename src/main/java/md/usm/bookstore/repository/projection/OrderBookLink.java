@@ -0,0 +1,7 @@
+package md.usm.bookstore.repository.projection;
+
+public record OrderBookLink(
+        Long orderId,
+        Long bookId
+) {
+}
@@ -0,0 +1,21 @@
+package md.usm.bookstore.repository.projection;
+
+import md.usm.bookstore.model.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * One order joined with one of its books; the book columns are {@code null} for an order without books.
+ */
+public record OrderBookRow(
+        Long id,
+        LocalDateTime orderDate,
+        LocalDateTime createdAt,
+        OrderStatus status,
+        Long bookId,
+        String title,
+        String isbn,
+        Double price,
+        LocalDateTime bookCreatedAt
+) {
+}
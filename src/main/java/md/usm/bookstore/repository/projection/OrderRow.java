@@ -0,0 +1,13 @@
+package md.usm.bookstore.repository.projection;
+
+import md.usm.bookstore.model.OrderStatus;
+
+import java.time.LocalDateTime;
+
+public record OrderRow(
+        Long id,
+        LocalDateTime orderDate,
+        LocalDateTime createdAt,
+        OrderStatus status
+) {
+}
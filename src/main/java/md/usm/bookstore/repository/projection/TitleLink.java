@@ -0,0 +1,10 @@
+package md.usm.bookstore.repository.projection;
+
+/**
+ * The title of a book attached to the author or category {@code ownerId}.
+ */
+public record TitleLink(
+        Long ownerId,
+        String title
+) {
+}
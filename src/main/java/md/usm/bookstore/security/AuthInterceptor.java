@@ -0,0 +1,62 @@
+package md.usm.bookstore.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import md.usm.bookstore.model.Role;
+import md.usm.bookstore.service.UserService;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class AuthInterceptor implements HandlerInterceptor {
+
+    public static final String PRINCIPAL_ATTRIBUTE = AuthInterceptor.class.getName() + ".principal";
+
+    private final UserService userService;
+    private final Map<Method, Optional<Set<Role>>> requiredRoles = new ConcurrentHashMap<>();
+
+    public AuthInterceptor(UserService userService) {
+        this.userService = userService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+
+        Optional<Set<Role>> roles = requiredRoles.computeIfAbsent(handlerMethod.getMethod(),
+                method -> resolveRequiredRoles(handlerMethod));
+        if (roles.isPresent()) {
+            String token = request.getHeader(HttpHeaders.AUTHORIZATION);
+            AuthenticatedUser principal = userService.validateRoles(token, roles.get());
+            request.setAttribute(PRINCIPAL_ATTRIBUTE, principal);
+        }
+        return true;
+    }
+
+    private Optional<Set<Role>> resolveRequiredRoles(HandlerMethod handlerMethod) {
+        RequiredRoles annotation = handlerMethod.getMethodAnnotation(RequiredRoles.class);
+        if (annotation == null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), RequiredRoles.class);
+        }
+        if (annotation == null) {
+            return Optional.empty();
+        }
+
+        EnumSet<Role> roles = EnumSet.noneOf(Role.class);
+        roles.addAll(Arrays.asList(annotation.value()));
+        return Optional.of(roles);
+    }
+}
@@ -0,0 +1,15 @@
+package md.usm.bookstore.security;
+
+import md.usm.bookstore.model.Role;
+import md.usm.bookstore.model.User;
+
+public record AuthenticatedUser(Long id, String username, Role role) {
+
+    public static AuthenticatedUser of(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getRole());
+    }
+
+    public boolean isAdmin() {
+        return role == Role.ADMIN;
+    }
+}
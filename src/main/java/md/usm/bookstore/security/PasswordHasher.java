@@ -0,0 +1,113 @@
+package md.usm.bookstore.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import md.usm.bookstore.exception.StoreException;
+import org.mindrot.jbcrypt.BCrypt;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static md.usm.bookstore.utils.ErrorType.SERVICE_UNAVAILABLE;
+
+/**
+ * Runs BCrypt on a small dedicated pool so that a login storm cannot occupy every request thread.
+ * Work that is not expected to finish within the latency budget is rejected up front with 503.
+ */
+@Component
+public class PasswordHasher {
+
+    private final ThreadPoolExecutor executor;
+    private final int threads;
+    private final long latencyBudgetMs;
+
+    private final Timer hashTimer;
+    private final Timer verifyTimer;
+    private final Counter rejections;
+
+    public PasswordHasher(@Value("${password.hashing.threads:0}") int threads,
+                          @Value("${password.hashing.queue-capacity:64}") int queueCapacity,
+                          @Value("${password.hashing.latency-budget-ms:2000}") long latencyBudgetMs,
+                          MeterRegistry meterRegistry) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.latencyBudgetMs = latencyBudgetMs;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "bcrypt");
+        this.hashTimer = Timer.builder("password.hashing").tag("operation", "hash").register(meterRegistry);
+        this.verifyTimer = Timer.builder("password.hashing").tag("operation", "verify").register(meterRegistry);
+        this.rejections = Counter.builder("password.hashing.rejected").register(meterRegistry);
+    }
+
+    public String hash(String password) {
+        return submit(hashTimer, () -> BCrypt.hashpw(password, BCrypt.gensalt()));
+    }
+
+    public boolean verify(String password, String hashedPassword) {
+        return submit(verifyTimer, () -> BCrypt.checkpw(password, hashedPassword));
+    }
+
+    private <T> T submit(Timer timer, Callable<T> task) {
+        if (estimatedWaitMs() > latencyBudgetMs) {
+            throw overloaded();
+        }
+
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            throw overloaded();
+        }
+
+        try {
+            return future.get(latencyBudgetMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw overloaded();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw overloaded();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private long estimatedWaitMs() {
+        double meanTaskMs = Math.max(hashTimer.mean(TimeUnit.MILLISECONDS), verifyTimer.mean(TimeUnit.MILLISECONDS));
+        int waves = executor.getQueue().size() / threads + 1;
+        return (long) (waves * meanTaskMs);
+    }
+
+    private StoreException overloaded() {
+        rejections.increment();
+        return new StoreException(
+                "Too many concurrent authentication requests, try again later",
+                SERVICE_UNAVAILABLE.name(),
+                HttpStatus.SERVICE_UNAVAILABLE.value()
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
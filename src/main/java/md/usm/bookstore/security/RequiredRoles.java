@@ -0,0 +1,16 @@
+package md.usm.bookstore.security;
+
+import md.usm.bookstore.model.Role;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a controller method as authenticated. The {@link AuthInterceptor} resolves the
+ * {@code Authorization} header once and rejects callers whose role is not listed.
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequiredRoles {
+    Role[] value();
+}
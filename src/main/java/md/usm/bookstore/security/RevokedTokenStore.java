@@ -0,0 +1,105 @@
+package md.usm.bookstore.security;
+
+import md.usm.bookstore.model.RevokedToken;
+import md.usm.bookstore.repository.RevokedTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked signed tokens, shared by every node through {@code revoked_tokens}.
+ * <p>
+ * Lookups only read a local copy, so validating a token never touches the database. A revocation
+ * applies on the node that made it at once and on the others after their next
+ * {@code auth.token.revocation-sync-ms} refresh; a restarted node loads every revocation that has
+ * not expired before it serves requests.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.token.mode", havingValue = "signed")
+public class RevokedTokenStore {
+
+    private static final Logger log = LoggerFactory.getLogger(RevokedTokenStore.class);
+
+    private final RevokedTokenRepository repository;
+    private final TransactionTemplate transaction;
+    // token hash -> expiry in epoch millis
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    public RevokedTokenStore(RevokedTokenRepository repository, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        refresh();
+    }
+
+    public boolean isRevoked(String token) {
+        return revoked.containsKey(hash(token));
+    }
+
+    public void revoke(String token, long expiresAt) {
+        String hash = hash(token);
+        if (revoked.putIfAbsent(hash, expiresAt) != null) {
+            return;
+        }
+        try {
+            transaction.executeWithoutResult(status -> repository.save(new RevokedToken(hash, toDateTime(expiresAt))));
+        } catch (DataIntegrityViolationException e) {
+            // revoked on another node first, the stored row is the same
+        } catch (RuntimeException e) {
+            revoked.remove(hash, expiresAt);
+            throw e;
+        }
+    }
+
+    /**
+     * Picks up revocations made on other nodes.
+     */
+    @Scheduled(fixedDelayString = "${auth.token.revocation-sync-ms:5000}")
+    public void refresh() {
+        try {
+            transaction.executeWithoutResult(status -> repository.findByExpiresAtAfter(LocalDateTime.now())
+                    .forEach(token -> revoked.putIfAbsent(token.getTokenHash(), toEpochMilli(token.getExpiresAt()))));
+        } catch (DataAccessException e) {
+            log.warn("Could not refresh revoked tokens, keeping the local copy", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${session.reaper-interval-ms:30000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> now > expiresAt);
+        transaction.executeWithoutResult(status -> repository.deleteExpiredAt(LocalDateTime.now()));
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static LocalDateTime toDateTime(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneId.systemDefault());
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
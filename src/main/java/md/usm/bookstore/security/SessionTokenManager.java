@@ -0,0 +1,35 @@
+package md.usm.bookstore.security;
+
+import md.usm.bookstore.service.SessionStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+@Component
+@ConditionalOnProperty(name = "auth.token.mode", havingValue = "session", matchIfMissing = true)
+public class SessionTokenManager implements TokenManager {
+
+    private final SessionStore sessionStore;
+
+    public SessionTokenManager(SessionStore sessionStore) {
+        this.sessionStore = sessionStore;
+    }
+
+    @Override
+    public String issue(AuthenticatedUser user) {
+        String token = UUID.randomUUID().toString();
+        sessionStore.put(token, user);
+        return token;
+    }
+
+    @Override
+    public AuthenticatedUser resolve(String token) {
+        return sessionStore.get(token);
+    }
+
+    @Override
+    public void revoke(String token) {
+        sessionStore.remove(token);
+    }
+}
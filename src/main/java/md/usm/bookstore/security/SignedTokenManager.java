@@ -0,0 +1,120 @@
+package md.usm.bookstore.security;
+
+import md.usm.bookstore.model.Role;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Stateless tokens of the form {@code base64url(id:role:expiresAt:username).base64url(hmac)}.
+ * Any node configured with the same {@code auth.token.secret} can validate them.
+ * Logged out tokens are recorded in the shared {@link RevokedTokenStore} until they would have
+ * expired anyway; other nodes reject them once they have refreshed their copy of it.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.token.mode", havingValue = "signed")
+public class SignedTokenManager implements TokenManager {
+
+    private static final Logger log = LoggerFactory.getLogger(SignedTokenManager.class);
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final long ttlMs;
+    private final ThreadLocal<Mac> mac;
+    private final RevokedTokenStore revoked;
+
+    public SignedTokenManager(@Value("${auth.token.secret:}") String secret,
+                              @Value("${session.ttl-ms:1200000}") long ttlMs,
+                              RevokedTokenStore revoked) {
+        this.ttlMs = ttlMs;
+        this.revoked = revoked;
+        SecretKeySpec key = new SecretKeySpec(resolveSecret(secret), ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> newMac(key));
+    }
+
+    @Override
+    public String issue(AuthenticatedUser user) {
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        String payload = ENCODER.encodeToString(
+                (user.id() + ":" + user.role().name() + ":" + expiresAt + ":" + user.username())
+                        .getBytes(StandardCharsets.UTF_8));
+        return payload + "." + ENCODER.encodeToString(sign(payload));
+    }
+
+    @Override
+    public AuthenticatedUser resolve(String token) {
+        Claims claims = verify(token);
+        if (claims == null || System.currentTimeMillis() > claims.expiresAt() || revoked.isRevoked(token)) {
+            return null;
+        }
+        return claims.user();
+    }
+
+    @Override
+    public void revoke(String token) {
+        Claims claims = verify(token);
+        if (claims != null && System.currentTimeMillis() <= claims.expiresAt()) {
+            revoked.revoke(token, claims.expiresAt());
+        }
+    }
+
+    private Claims verify(String token) {
+        if (token == null) return null;
+
+        int separator = token.indexOf('.');
+        if (separator <= 0) return null;
+
+        String payload = token.substring(0, separator);
+        try {
+            byte[] signature = DECODER.decode(token.substring(separator + 1));
+            if (!MessageDigest.isEqual(signature, sign(payload))) return null;
+
+            String[] parts = new String(DECODER.decode(payload), StandardCharsets.UTF_8).split(":", 4);
+            if (parts.length != 4) return null;
+
+            AuthenticatedUser user = new AuthenticatedUser(Long.parseLong(parts[0]), parts[3], Role.valueOf(parts[1]));
+            return new Claims(user, Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] sign(String payload) {
+        return mac.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize " + ALGORITHM, e);
+        }
+    }
+
+    private static byte[] resolveSecret(String secret) {
+        if (secret != null && !secret.isBlank()) {
+            return secret.getBytes(StandardCharsets.UTF_8);
+        }
+        log.warn("auth.token.secret is not set, using a random key: tokens will not be valid on other nodes or after a restart");
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return random;
+    }
+
+    private record Claims(AuthenticatedUser user, long expiresAt) {
+    }
+}
@@ -0,0 +1,13 @@
+package md.usm.bookstore.security;
+
+public interface TokenManager {
+
+    String issue(AuthenticatedUser user);
+
+    /**
+     * @return the principal the token was issued for, or {@code null} if the token is unknown, expired or revoked
+     */
+    AuthenticatedUser resolve(String token);
+
+    void revoke(String token);
+}
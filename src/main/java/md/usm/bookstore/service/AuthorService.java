@@ -1,48 +1,90 @@
 package md.usm.bookstore.service;
 
 import md.usm.bookstore.dto.AuthorDto;
+import md.usm.bookstore.dto.AuthorSummaryDto;
+import md.usm.bookstore.dto.BookDto;
+import md.usm.bookstore.dto.CursorPageDto;
+import md.usm.bookstore.event.AuthorChangedEvent;
 import md.usm.bookstore.exception.StoreException;
 import md.usm.bookstore.model.Author;
 import md.usm.bookstore.repository.AuthorRepository;
+import md.usm.bookstore.repository.projection.AuthorRow;
+import md.usm.bookstore.repository.projection.AuthorSummaryRow;
+import md.usm.bookstore.repository.projection.BookLink;
+import md.usm.bookstore.repository.projection.TitleLink;
+import md.usm.bookstore.utils.Cursor;
+import md.usm.bookstore.utils.ErrorType;
 import md.usm.bookstore.utils.Mapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 @Service
 public class AuthorService {
 
+    public static final int MAX_SUMMARY_TITLES = 10;
+
     private final AuthorRepository authorRepository;
 
     private final Mapper mapper;
 
-    public AuthorService(AuthorRepository authorRepository, Mapper mapper) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public AuthorService(AuthorRepository authorRepository, Mapper mapper, ApplicationEventPublisher eventPublisher) {
         this.authorRepository = authorRepository;
         this.mapper = mapper;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
     public AuthorDto create(AuthorDto dto) {
         Author author = mapper.toEntity(dto);
         Author saved = authorRepository.save(author);
+        eventPublisher.publishEvent(new AuthorChangedEvent(saved.getId()));
         return mapper.toDto(saved);
     }
 
+    @Transactional(readOnly = true)
     public Page<AuthorDto> getAll(Pageable pageable) {
-        Page<Author> authorsPage = authorRepository.findAllAuthors(pageable);
-        List<Author> authorsWithBooks = authorRepository.fetchBooksForAuthors(authorsPage.getContent());
+        Page<AuthorRow> rows = authorRepository.findAllRows(pageable);
+        Map<Long, List<BookDto>> books = rows.hasContent()
+                ? mapper.groupByOwner(authorRepository.findBookLinks(rows.map(AuthorRow::id).getContent()), BookLink::ownerId, mapper::toDto)
+                : Map.of();
+        return rows.map(row -> mapper.toDto(row, books.getOrDefault(row.id(), List.of())));
+    }
 
-        List<AuthorDto> dtoList = authorsWithBooks.stream()
-                .map(mapper::toDto)
-                .toList();
+    /**
+     * Authors with their book count, and optionally their first {@code titles} titles, instead of
+     * every book; the books themselves are paged through {@code BookService#getAllByAuthor}.
+     */
+    @Transactional(readOnly = true)
+    public Page<AuthorSummaryDto> getSummaries(Pageable pageable, int titles) {
+        if (titles < 0 || titles > MAX_SUMMARY_TITLES) {
+            throw new StoreException(
+                    "titles must be between 0 and " + MAX_SUMMARY_TITLES,
+                    ErrorType.VALIDATION_ERROR.name(),
+                    HttpStatus.BAD_REQUEST.value()
+            );
+        }
+        Page<AuthorSummaryRow> rows = authorRepository.findAllSummaries(pageable);
+        Map<Long, List<String>> firstTitles = titles > 0 && rows.hasContent()
+                ? mapper.groupByOwner(authorRepository.findFirstTitles(rows.map(AuthorSummaryRow::id).getContent(), titles), TitleLink::ownerId, TitleLink::title)
+                : Map.of();
+        return rows.map(row -> mapper.toDto(row, firstTitles.getOrDefault(row.id(), List.of())));
+    }
 
-        return new PageImpl<>(dtoList, pageable, authorsPage.getTotalElements());
+    @Transactional(readOnly = true)
+    public CursorPageDto<AuthorDto> getAllAfter(String after, int size) {
+        List<Author> authors = authorRepository.findNextPage(Cursor.decode(after), Cursor.limit(size));
+        if (!authors.isEmpty()) {
+            authorRepository.fetchBooksForAuthors(authors);
+        }
+        return Cursor.page(authors, size, mapper::toDto);
     }
 
     public AuthorDto getById(Long id) {
@@ -66,16 +108,33 @@ public class AuthorService {
                 ));
     }
 
+    /**
+     * Loads all authors in one query, in the order of {@code ids} and without duplicates.
+     * Fails with a single NOT_FOUND listing every id that does not exist.
+     */
     public List<Author> getEntityListById(List<Long> ids) {
-        List<Author> authors = new ArrayList<>();
-        ids.forEach(id -> authors.add(this.getEntityById(id)));
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        Map<Long, Author> found = new HashMap<>();
+        authorRepository.findAllById(requested).forEach(author -> found.put(author.getId(), author));
 
-        return authors;
+        List<Long> missing = requested.stream().filter(id -> !found.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            throw new StoreException(
+                    missing.size() == 1
+                            ? "Author not found with id " + missing.getFirst()
+                            : "Authors not found with ids " + missing,
+                    "NOT_FOUND",
+                    HttpStatus.NOT_FOUND.value()
+            );
+        }
+
+        return requested.stream().map(found::get).toList();
     }
 
     @Transactional
     public AuthorDto update(Long id, AuthorDto dto) {
         Author existing = getEntityById(id);
+        String oldName = existing.getFirstName() + " " + existing.getLastName();
 
         if (dto.firstName() != null) {
             existing.setFirstName(dto.firstName());
@@ -85,16 +144,16 @@ public class AuthorService {
         }
 
         authorRepository.save(existing);
+        if (!oldName.equals(existing.getFirstName() + " " + existing.getLastName())) {
+            eventPublisher.publishEvent(new AuthorChangedEvent(existing.getId()));
+        }
         return getById(existing.getId());
     }
 
     public void delete(Long id) {
         Author existing = getEntityById(id);
         authorRepository.delete(existing);
-    }
-
-    public List<Author> getAllAuthorsByBookId(Long id) {
-        return authorRepository.findAllByBookId(id);
+        eventPublisher.publishEvent(new AuthorChangedEvent(id));
     }
 
 }
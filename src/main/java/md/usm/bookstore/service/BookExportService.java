@@ -0,0 +1,86 @@
+package md.usm.bookstore.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import md.usm.bookstore.dto.AuthorDto;
+import md.usm.bookstore.dto.BookDto;
+import md.usm.bookstore.repository.BookRepository;
+import md.usm.bookstore.repository.projection.AuthorLink;
+import md.usm.bookstore.repository.projection.BookRow;
+import md.usm.bookstore.utils.Mapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole catalog as NDJSON, one {@code BookDto} per line, in id order.
+ * <p>
+ * Books are read from a forward-only cursor ({@link BookRepository#STREAM_FETCH_SIZE} rows per
+ * round trip) as projections, so nothing accumulates in the persistence context. Authors are
+ * loaded with one query per chunk of rows, and the output is flushed after every chunk.
+ */
+@Service
+public class BookExportService {
+
+    private final BookRepository bookRepository;
+    private final Mapper mapper;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter bookWriter;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public BookExportService(BookRepository bookRepository, Mapper mapper, ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.mapper = mapper;
+        this.objectMapper = objectMapper;
+        this.bookWriter = objectMapper.writerFor(BookDto.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void export(OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<BookRow> rows = bookRepository.streamAllRows()) {
+                    Iterator<BookRow> iterator = rows.iterator();
+                    List<BookRow> chunk = new ArrayList<>(BookRepository.STREAM_FETCH_SIZE);
+                    while (iterator.hasNext()) {
+                        chunk.add(iterator.next());
+                        if (chunk.size() == BookRepository.STREAM_FETCH_SIZE || !iterator.hasNext()) {
+                            writeChunk(chunk, generator);
+                            chunk.clear();
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeChunk(List<BookRow> chunk, JsonGenerator generator) throws IOException {
+        Map<Long, List<AuthorDto>> authors = mapper.groupByOwner(
+                bookRepository.findAuthorLinks(chunk.stream().map(BookRow::id).toList()), AuthorLink::bookId, mapper::toDto);
+
+        for (BookRow row : chunk) {
+            bookWriter.writeValue(generator, mapper.toDto(row, authors.getOrDefault(row.id(), List.of())));
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+}
@@ -0,0 +1,344 @@
+package md.usm.bookstore.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import md.usm.bookstore.dto.AuthorDto;
+import md.usm.bookstore.dto.BookDto;
+import md.usm.bookstore.dto.CategoryDto;
+import md.usm.bookstore.dto.ImportReportDto;
+import md.usm.bookstore.event.BooksImportedEvent;
+import md.usm.bookstore.exception.StoreException;
+import md.usm.bookstore.model.Author;
+import md.usm.bookstore.model.Book;
+import md.usm.bookstore.model.Category;
+import md.usm.bookstore.repository.AuthorRepository;
+import md.usm.bookstore.repository.CategoryRepository;
+import md.usm.bookstore.utils.Mapper;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static md.usm.bookstore.utils.ErrorType.BAD_REQUEST;
+
+/**
+ * Streams books from NDJSON or CSV into the catalog.
+ * <p>
+ * The body is read line by line and written in chunks of {@code batchSize} rows, each in its own
+ * transaction with the same JDBC batch size, so memory stays flat however large the upload is.
+ * Authors and categories are looked up once per import: ids seen for the first time in a chunk are
+ * resolved with a single query and rows then only hold references to them.
+ * <p>
+ * NDJSON lines have the same shape as the body of {@code POST /api/v1/book}. CSV rows are
+ * {@code title,isbn,price,authorIds,categoryId} with author ids separated by {@code ;}
+ * and an optional header row.
+ */
+@Service
+public class BookImportService {
+
+    public static final MediaType TEXT_CSV = MediaType.valueOf("text/csv");
+
+    private static final int MAX_REPORTED_ERRORS = 500;
+    private static final int CSV_COLUMNS = 5;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final AuthorRepository authorRepository;
+    private final CategoryRepository categoryRepository;
+    private final Mapper mapper;
+    private final Validator validator;
+    private final ObjectReader bookReader;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+
+    public BookImportService(AuthorRepository authorRepository, CategoryRepository categoryRepository, Mapper mapper,
+                             Validator validator, ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${catalog.import.batch-size:500}") int batchSize) {
+        this.authorRepository = authorRepository;
+        this.categoryRepository = categoryRepository;
+        this.mapper = mapper;
+        this.validator = validator;
+        this.bookReader = objectMapper.readerFor(BookDto.class);
+        this.eventPublisher = eventPublisher;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    public ImportReportDto importBooks(InputStream body, MediaType contentType) {
+        boolean csv = TEXT_CSV.isCompatibleWith(contentType);
+        ImportRun run = new ImportRun();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            List<Row> chunk = new ArrayList<>(batchSize);
+            boolean firstRow = true;
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+                if (csv && firstRow && isCsvHeader(line)) {
+                    firstRow = false;
+                    continue;
+                }
+                firstRow = false;
+
+                try {
+                    BookDto book = csv ? parseCsv(line) : bookReader.readValue(line);
+                    validate(book);
+                    chunk.add(new Row(lineNumber, withDistinctAuthors(book)));
+                } catch (IOException | IllegalArgumentException e) {
+                    run.reject(lineNumber, "Malformed row: " + e.getMessage());
+                } catch (StoreException e) {
+                    run.reject(lineNumber, e.getMessage());
+                }
+
+                if (chunk.size() == batchSize) {
+                    write(chunk, run);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                write(chunk, run);
+            }
+        } catch (IOException e) {
+            throw new StoreException(
+                    "Could not read import body: " + e.getMessage(),
+                    BAD_REQUEST.name(),
+                    HttpStatus.BAD_REQUEST.value()
+            );
+        }
+
+        return run.report();
+    }
+
+    private void validate(BookDto book) {
+        Set<ConstraintViolation<BookDto>> violations = validator.validate(book);
+        if (!violations.isEmpty()) {
+            throw invalid(violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        if (book.authors() == null || book.authors().isEmpty() || book.authors().stream().anyMatch(a -> a == null || a.id() == null)) {
+            throw invalid("Author ID is required");
+        }
+        if (book.category() == null || book.category().id() == null) {
+            throw invalid("Category ID is required");
+        }
+    }
+
+    private void write(List<Row> chunk, ImportRun run) {
+        run.resolve(chunk);
+
+        List<Row> valid = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            String problem = run.unresolved(row.book());
+            if (problem == null) {
+                valid.add(row);
+            } else {
+                run.reject(row.line(), problem);
+            }
+        }
+        if (valid.isEmpty()) return;
+
+        try {
+            transaction.executeWithoutResult(status -> persist(valid, run));
+            run.imported += valid.size();
+        } catch (DataAccessException | PersistenceException e) {
+            String message = "Batch not imported: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            valid.forEach(row -> run.reject(row.line(), message));
+        }
+    }
+
+    private void persist(List<Row> rows, ImportRun run) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+
+        List<BookDto> saved = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            BookDto dto = row.book();
+            List<Author> authors = new ArrayList<>(dto.authors().size());
+            dto.authors().forEach(a -> authors.add(entityManager.getReference(Author.class, a.id())));
+            Category category = entityManager.getReference(Category.class, dto.category().id());
+
+            Book book = new Book(dto.title(), dto.isbn(), dto.price(), authors, category);
+            entityManager.persist(book);
+
+            saved.add(new BookDto(book.getId(), book.getTitle(), book.getIsbn(), book.getPrice(),
+                    dto.authors().stream().map(a -> run.authors.get(a.id())).toList(),
+                    run.categories.get(dto.category().id()),
+                    book.getCreatedAt(), book.getVersion()));
+        }
+        rows.stream()
+                .collect(Collectors.groupingBy(row -> row.book().category().id(), Collectors.counting()))
+                .forEach(categoryRepository::addToBookCount);
+        entityManager.flush();
+        entityManager.clear();
+
+        eventPublisher.publishEvent(new BooksImportedEvent(saved));
+    }
+
+    /**
+     * The link table has no key of its own, so a repeated author id would be stored as a second
+     * identical link; {@link BookService#create} drops repeats the same way.
+     */
+    private static BookDto withDistinctAuthors(BookDto book) {
+        Set<Long> ids = new LinkedHashSet<>();
+        List<AuthorDto> authors = book.authors().stream().filter(a -> ids.add(a.id())).toList();
+        if (authors.size() == book.authors().size()) return book;
+        return new BookDto(book.id(), book.title(), book.isbn(), book.price(), authors, book.category(),
+                book.createdAt(), book.version());
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return splitCsv(line).getFirst().trim().equalsIgnoreCase("title");
+    }
+
+    private static BookDto parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        if (fields.size() != CSV_COLUMNS) {
+            throw new IllegalArgumentException("expected " + CSV_COLUMNS + " columns but got " + fields.size());
+        }
+
+        List<AuthorDto> authors = new ArrayList<>();
+        for (String id : fields.get(3).split(";")) {
+            if (!id.isBlank()) authors.add(new AuthorDto(Long.valueOf(id.trim()), null, null, null, null));
+        }
+        String categoryId = fields.get(4).trim();
+
+        return new BookDto(
+                null,
+                fields.get(0),
+                fields.get(1),
+                fields.get(2).isBlank() ? null : Double.valueOf(fields.get(2).trim()),
+                authors,
+                categoryId.isEmpty() ? null : new CategoryDto(Long.valueOf(categoryId), null, null, null),
+                null,
+                null
+        );
+    }
+
+    /**
+     * RFC 4180 field splitting for a single line: fields may be quoted and quotes are escaped by doubling.
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(CSV_COLUMNS);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static StoreException invalid(String message) {
+        return new StoreException(message, BAD_REQUEST.name(), HttpStatus.BAD_REQUEST.value());
+    }
+
+    private record Row(long line, BookDto book) {
+    }
+
+    /**
+     * State of one import: counters, collected errors and the authors and categories resolved so far.
+     */
+    private class ImportRun {
+
+        private final Map<Long, AuthorDto> authors = new HashMap<>();
+        private final Map<Long, CategoryDto> categories = new HashMap<>();
+        private final Set<Long> missingAuthors = new HashSet<>();
+        private final Set<Long> missingCategories = new HashSet<>();
+        private final List<ImportReportDto.LineError> errors = new ArrayList<>();
+        private int imported;
+        private int rejected;
+
+        void resolve(List<Row> chunk) {
+            Set<Long> authorIds = new HashSet<>();
+            Set<Long> categoryIds = new HashSet<>();
+            for (Row row : chunk) {
+                row.book().authors().forEach(a -> authorIds.add(a.id()));
+                categoryIds.add(row.book().category().id());
+            }
+            authorIds.removeAll(authors.keySet());
+            authorIds.removeAll(missingAuthors);
+            categoryIds.removeAll(categories.keySet());
+            categoryIds.removeAll(missingCategories);
+
+            if (!authorIds.isEmpty()) {
+                authorRepository.findAllById(authorIds)
+                        .forEach(a -> authors.put(a.getId(), mapper.toAuthorDtoWithoutBooks(a)));
+                authorIds.removeAll(authors.keySet());
+                missingAuthors.addAll(authorIds);
+            }
+            if (!categoryIds.isEmpty()) {
+                categoryRepository.findAllById(categoryIds)
+                        .forEach(c -> categories.put(c.getId(), mapper.toCategoryDtoWithoutBooks(c)));
+                categoryIds.removeAll(categories.keySet());
+                missingCategories.addAll(categoryIds);
+            }
+        }
+
+        String unresolved(BookDto book) {
+            for (AuthorDto author : book.authors()) {
+                if (!authors.containsKey(author.id())) return "Author not found with id " + author.id();
+            }
+            if (!categories.containsKey(book.category().id())) {
+                return "Category not found with id " + book.category().id();
+            }
+            return null;
+        }
+
+        void reject(long line, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportReportDto.LineError(line, message));
+            }
+        }
+
+        ImportReportDto report() {
+            errors.sort(Comparator.comparingLong(ImportReportDto.LineError::line));
+            return new ImportReportDto(imported, rejected, errors);
+        }
+    }
+}
@@ -1,26 +1,46 @@
 package md.usm.bookstore.service;
 
+import md.usm.bookstore.config.CacheConfig;
 import md.usm.bookstore.dto.AuthorDto;
 import md.usm.bookstore.dto.BookDto;
+import md.usm.bookstore.dto.CursorPageDto;
+import md.usm.bookstore.dto.FacetedPageDto;
+import md.usm.bookstore.dto.SuggestionDto;
+import md.usm.bookstore.event.BookChangedEvent;
 import md.usm.bookstore.exception.StoreException;
+import md.usm.bookstore.index.BookFilter;
+import md.usm.bookstore.index.BookSearchIndex;
+import md.usm.bookstore.index.FacetIndex;
+import md.usm.bookstore.index.RelatedBooksIndex;
+import md.usm.bookstore.index.SuggestIndex;
 import md.usm.bookstore.model.Author;
 import md.usm.bookstore.model.Book;
 import md.usm.bookstore.model.Category;
-import md.usm.bookstore.repository.AuthorRepository;
 import md.usm.bookstore.repository.BookRepository;
-import md.usm.bookstore.repository.CategoryRepository;
+import md.usm.bookstore.repository.projection.AuthorLink;
+import md.usm.bookstore.repository.projection.BookRow;
+import md.usm.bookstore.utils.Cursor;
 import md.usm.bookstore.utils.ErrorType;
 import md.usm.bookstore.utils.Mapper;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static md.usm.bookstore.utils.ErrorType.VALIDATION_ERROR;
 
@@ -28,20 +48,30 @@ import static md.usm.bookstore.utils.ErrorType.VALIDATION_ERROR;
 @Service
 public class BookService {
 
+    public static final Set<String> SORTABLE_PROPERTIES = Set.of("id", "title", "price", "createdAt");
+
     private final BookRepository bookRepository;
     private final CategoryService categoryService;
     private final AuthorService authorService;
-    private final CategoryRepository categoryRepository;
-    private final AuthorRepository authorRepository;
     private final Mapper mapper;
+    private final BookSearchIndex searchIndex;
+    private final FacetIndex facetIndex;
+    private final SuggestIndex suggestIndex;
+    private final RelatedBooksIndex relatedIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OptimisticRetry optimisticRetry;
 
-    public BookService(BookRepository bookRepository, CategoryService categoryService, AuthorService authorService, CategoryRepository categoryRepository, AuthorRepository authorRepository, Mapper mapper) {
+    public BookService(BookRepository bookRepository, CategoryService categoryService, AuthorService authorService, Mapper mapper, BookSearchIndex searchIndex, FacetIndex facetIndex, SuggestIndex suggestIndex, RelatedBooksIndex relatedIndex, ApplicationEventPublisher eventPublisher, OptimisticRetry optimisticRetry) {
         this.bookRepository = bookRepository;
         this.categoryService = categoryService;
         this.authorService = authorService;
-        this.categoryRepository = categoryRepository;
-        this.authorRepository = authorRepository;
         this.mapper = mapper;
+        this.searchIndex = searchIndex;
+        this.facetIndex = facetIndex;
+        this.suggestIndex = suggestIndex;
+        this.relatedIndex = relatedIndex;
+        this.eventPublisher = eventPublisher;
+        this.optimisticRetry = optimisticRetry;
     }
 
     @Transactional
@@ -49,33 +79,129 @@ public class BookService {
         checkAuthorAndAuthorId(bookDto);
         checkCategoryAndCategoryId(bookDto);
 
-        List<Author> authorsFromDb = new ArrayList<>();
-
-        bookDto.authors().forEach(authorDto -> authorsFromDb.add(authorService.getEntityById(authorDto.id())));
+        List<Author> authorsFromDb = authorService.getEntityListById(
+                bookDto.authors().stream().map(AuthorDto::id).toList()
+        );
 
         Category category = categoryService.getEntityById(bookDto.category().id());
 
+        // Book owns both relationships, so the link rows are inserted with the book
+        // without touching the authors' or the category's book lists
         Book book = mapper.toEntity(bookDto);
+        book.setAuthors(new ArrayList<>(authorsFromDb));
+        book.setCategory(category);
 
         Book savedBook = bookRepository.save(book);
+        categoryService.adjustBookCount(category.getId(), 1);
+
+        BookDto saved = mapper.toDto(savedBook);
+        eventPublisher.publishEvent(BookChangedEvent.saved(saved));
+        return saved;
+    }
+
+    @Transactional(readOnly = true)
+    public Page<BookDto> getAll(Pageable pageable) {
+        return withAuthors(bookRepository.findAllRows(pageable));
+    }
 
-        for(Author a: authorsFromDb) {
-            a.addBook(book);
-            authorRepository.save(a);
+    @Transactional(readOnly = true)
+    public Page<BookDto> getAllByAuthor(Long authorId, Pageable pageable) {
+        authorService.getEntityById(authorId);
+        return withAuthors(bookRepository.findRowsByAuthorId(authorId, pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageDto<BookDto> getAllAfter(String after, int size) {
+        List<Book> books = bookRepository.findNextPage(Cursor.decode(after), Cursor.limit(size));
+        if (!books.isEmpty()) {
+            bookRepository.fetchAuthorsForBooks(books);
         }
-        category.addBook(book);
-        categoryRepository.save(category);
+        return Cursor.page(books, size, mapper::toDto);
+    }
 
-        return mapper.toDto(savedBook);
+    /**
+     * One page of a category's books, sorted by any of {@link #SORTABLE_PROPERTIES} with the id as
+     * tie-breaker so that pages never overlap.
+     */
+    @Transactional(readOnly = true)
+    public Page<BookDto> getAllByCategory(Long categoryId, Pageable pageable) {
+        pageable = checkSort(pageable);
+        categoryService.getEntityById(categoryId);
+        return withAuthors(bookRepository.findRowsByCategoryId(categoryId, pageable));
     }
 
-    public Page<BookDto> getAll(Pageable pageable) {
-        Page<Book> books = bookRepository.findAll(pageable);
-        List<Book> content = books.getContent();
-        content.forEach(book -> book.setAuthors(authorService.getAllAuthorsByBookId(book.getId())));
-        return books.map(mapper::toDto);
+    /**
+     * Rejects sort properties outside {@link #SORTABLE_PROPERTIES} and appends {@code id} as the
+     * tie-breaker, so that pages of equal titles or prices do not overlap.
+     */
+    public static Pageable checkSort(Pageable pageable) {
+        Sort sort = pageable.getSort();
+        for (Sort.Order order : sort) {
+            if (!SORTABLE_PROPERTIES.contains(order.getProperty())) {
+                throw new StoreException(
+                        "Books can only be sorted by " + SORTABLE_PROPERTIES,
+                        VALIDATION_ERROR.name(),
+                        HttpStatus.BAD_REQUEST.value()
+                );
+            }
+        }
+        return sort.getOrderFor("id") == null
+                ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort.and(Sort.by("id")))
+                : pageable;
+    }
+
+    public FacetedPageDto<BookDto> browse(BookFilter filter, int page, int size) {
+        if (page < 0 || size < 1 || size > Cursor.MAX_PAGE_SIZE) {
+            throw new StoreException(
+                    "Page must be >= 0 and size between 1 and " + Cursor.MAX_PAGE_SIZE,
+                    VALIDATION_ERROR.name(),
+                    HttpStatus.BAD_REQUEST.value()
+            );
+        }
+        if (filter.minPrice() != null && filter.maxPrice() != null && filter.minPrice() > filter.maxPrice()) {
+            throw new StoreException(
+                    "minPrice must not be greater than maxPrice",
+                    VALIDATION_ERROR.name(),
+                    HttpStatus.BAD_REQUEST.value()
+            );
+        }
+        return facetIndex.query(filter, page, size);
+    }
+
+    public List<SuggestionDto> suggest(String prefix, int limit) {
+        return suggestIndex.suggest(prefix, limit);
     }
 
+    /**
+     * Served entirely from memory: ids come from {@link RelatedBooksIndex}, books from the search index.
+     */
+    public List<BookDto> related(Long id, int limit) {
+        if (limit < 1) {
+            throw new StoreException(
+                    "limit must be at least 1",
+                    VALIDATION_ERROR.name(),
+                    HttpStatus.BAD_REQUEST.value()
+            );
+        }
+        if (searchIndex.get(id) == null) {
+            throw new StoreException(
+                    "Book not found with id " + id,
+                    ErrorType.NOT_FOUND.name(),
+                    HttpStatus.NOT_FOUND.value()
+            );
+        }
+        return relatedIndex.related(id, RelatedBooksIndex.MAX_RELATED).stream()
+                .map(searchIndex::get)
+                .filter(Objects::nonNull)
+                .limit(Math.min(limit, RelatedBooksIndex.MAX_RELATED))
+                .toList();
+    }
+
+    public List<BookDto> search(String query, int limit) {
+        return searchIndex.search(query, Math.min(limit, Cursor.MAX_PAGE_SIZE));
+    }
+
+    @Cacheable(cacheNames = CacheConfig.BOOKS_CACHE, key = "#id")
     public BookDto getById(Long id) {
         return mapper.toDto(getEntityById(id));
     }
@@ -89,43 +215,96 @@ public class BookService {
                 ));
     }
 
-    @Transactional
     public BookDto update(Long id, BookDto bookDto) {
-        Book book = getEntityById(id);
+        return update(id, bookDto, null);
+    }
 
-        if (bookDto.title() != null) book.setTitle(bookDto.title());
-        if (bookDto.isbn() != null) book.setIsbn(bookDto.isbn());
-        if (bookDto.price() != null) book.setPrice(bookDto.price());
-        if (bookDto.authors() != null) {
+    /**
+     * Applies the fields of {@code bookDto} that differ from the stored book, see {@link OptimisticRetry}.
+     *
+     * @param expectedVersion version the client based the change on ({@code If-Match}), or null
+     */
+    public BookDto update(Long id, BookDto bookDto, Long expectedVersion) {
+        if (bookDto.category() != null) checkCategoryAndCategoryId(bookDto);
+        if (bookDto.authors() != null) checkAuthorAndAuthorId(bookDto);
 
-            if (book.getAuthors() != null) {
-                for (Author author : new ArrayList<>(book.getAuthors())) {
-                    book.removeAuthor(author);
-                }
-            }
-            List<Author> newAuthors =
-                    authorService.getEntityListById(
-                            bookDto.authors().stream().map(AuthorDto::id).toList()
-                    );
+        Map<String, Object> requested = new HashMap<>();
+        requested.put("title", bookDto.title());
+        requested.put("isbn", bookDto.isbn());
+        requested.put("price", bookDto.price());
+        requested.put("category", bookDto.category() == null ? null : bookDto.category().id());
+        requested.put("authors", bookDto.authors() == null ? null
+                : bookDto.authors().stream().map(AuthorDto::id).collect(Collectors.toSet()));
+
+        return optimisticRetry.update("book", expectedVersion, requested,
+                () -> getEntityById(id), this::fields, this::apply);
+    }
 
-            newAuthors.forEach(book::addAuthor);
+    private Map<String, Object> fields(Book book) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("title", book.getTitle());
+        fields.put("isbn", book.getIsbn());
+        fields.put("price", book.getPrice());
+        fields.put("category", book.getCategory() == null ? null : book.getCategory().getId());
+        fields.put("authors", book.getAuthors().stream().map(Author::getId).collect(Collectors.toSet()));
+        return fields;
+    }
 
-            bookRepository.save(book);
+    @SuppressWarnings("unchecked")
+    private BookDto apply(Book book, Map<String, Object> changes) {
+        Long id = book.getId();
+        if (changes.containsKey("title")) book.setTitle((String) changes.get("title"));
+        if (changes.containsKey("isbn")) book.setIsbn((String) changes.get("isbn"));
+        if (changes.containsKey("price")) book.setPrice((Double) changes.get("price"));
+        if (changes.containsKey("category")) {
+            Long previousId = book.getCategory() == null ? null : book.getCategory().getId();
+            book.setCategory(categoryService.getEntityById((Long) changes.get("category")));
+            if (previousId != null) categoryService.adjustBookCount(previousId, -1);
+            categoryService.adjustBookCount(book.getCategory().getId(), 1);
         }
-        if (bookDto.category() != null) {
-            checkCategoryAndCategoryId(bookDto);
-            Category category = categoryService.getEntityById(bookDto.category().id());
-            category.addBook(book);
-            categoryRepository.save(category);
+        // flushed here so a lost race surfaces now and the response carries the new version
+        bookRepository.saveAndFlush(book);
+
+        if (changes.containsKey("authors")) {
+            // the link rows are written around the entity, so its version is bumped by hand
+            if (bookRepository.incrementVersion(id, book.getVersion()) == 0) {
+                throw new ObjectOptimisticLockingFailureException(Book.class, id);
+            }
+            relinkAuthors(book, (Set<Long>) changes.get("authors"));
+            // the link queries cleared the persistence context, read the book back with its new authors
+            book = getEntityById(id);
         }
 
-        Book saved = bookRepository.save(book);
-        return mapper.toDto(saved);
+        BookDto saved = mapper.toDto(book);
+        eventPublisher.publishEvent(BookChangedEvent.saved(saved));
+        return saved;
     }
 
+    @Transactional
     public void delete(Long id) {
         Book existing = getEntityById(id);
         bookRepository.delete(existing);
+        if (existing.getCategory() != null) categoryService.adjustBookCount(existing.getCategory().getId(), -1);
+        eventPublisher.publishEvent(BookChangedEvent.deleted(id));
+    }
+
+    /**
+     * Diffs the requested author ids against the current ones and applies the difference with one
+     * DELETE and one INSERT ... SELECT on the link table.
+     */
+    private void relinkAuthors(Book book, Set<Long> authorIds) {
+        List<Long> requested = authorService.getEntityListById(List.copyOf(authorIds))
+                .stream()
+                .map(Author::getId)
+                .toList();
+        Set<Long> current = book.getAuthors().stream().map(Author::getId).collect(Collectors.toSet());
+
+        Set<Long> removed = new HashSet<>(current);
+        requested.forEach(removed::remove);
+        List<Long> added = requested.stream().filter(authorId -> !current.contains(authorId)).toList();
+
+        if (!removed.isEmpty()) bookRepository.unlinkAuthors(book.getId(), removed);
+        if (!added.isEmpty()) bookRepository.linkAuthors(book.getId(), added);
     }
 
     private void checkAuthorAndAuthorId(BookDto bookDto) {
@@ -151,4 +330,11 @@ public class BookService {
     public Set<Book> getAllByIds(List<Long> ids) {
         return new HashSet<>(bookRepository.findAllById(ids));
     }
+
+    private Page<BookDto> withAuthors(Page<BookRow> rows) {
+        Map<Long, List<AuthorDto>> authors = rows.hasContent()
+                ? mapper.groupByOwner(bookRepository.findAuthorLinks(rows.map(BookRow::id).getContent()), AuthorLink::bookId, mapper::toDto)
+                : Map.of();
+        return rows.map(row -> mapper.toDto(row, authors.getOrDefault(row.id(), List.of())));
+    }
 }
@@ -1,19 +1,20 @@
 package md.usm.bookstore.service;
 
 import md.usm.bookstore.dto.CategoryDto;
+import md.usm.bookstore.dto.CursorPageDto;
+import md.usm.bookstore.event.CategoryChangedEvent;
 import md.usm.bookstore.exception.StoreException;
 import md.usm.bookstore.model.Category;
 import md.usm.bookstore.repository.CategoryRepository;
+import md.usm.bookstore.utils.Cursor;
 import md.usm.bookstore.utils.Mapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-
 import static md.usm.bookstore.utils.ErrorType.NOT_FOUND;
 
 @Service
@@ -21,34 +22,33 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final Mapper mapper;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CategoryService(CategoryRepository categoryRepository, Mapper mapper) {
+    public CategoryService(CategoryRepository categoryRepository, Mapper mapper, ApplicationEventPublisher eventPublisher) {
         this.categoryRepository = categoryRepository;
         this.mapper = mapper;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
     public CategoryDto create(CategoryDto dto) {
-        Category category = mapper.toEntity(dto);
-        return mapper.toDto(categoryRepository.save(category));
+        Category category = categoryRepository.save(mapper.toEntity(dto));
+        eventPublisher.publishEvent(new CategoryChangedEvent(category.getId()));
+        return mapper.toDto(category);
     }
 
+    @Transactional(readOnly = true)
     public Page<CategoryDto> getAll(Pageable pageable) {
-        Page<Category> page = categoryRepository.findAllCategories(pageable);
-        List<Category> categoriesWithBooks = categoryRepository.fetchBooksForCategories(page.getContent());
-        return new PageImpl<>(categoriesWithBooks.stream().map(mapper::toDto).toList(), pageable, page.getTotalElements());
+        return categoryRepository.findAllRows(pageable).map(mapper::toDto);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageDto<CategoryDto> getAllAfter(String after, int size) {
+        return Cursor.page(categoryRepository.findNextPage(Cursor.decode(after), Cursor.limit(size)), size, mapper::toDto);
     }
 
     public CategoryDto getById(Long id) {
-        Category category = categoryRepository.findByIdWithBooks(id);
-        if (category == null) {
-            throw new StoreException(
-                    "Category not found with id " + id,
-                    NOT_FOUND.name(),
-                    HttpStatus.NOT_FOUND.value()
-            );
-        }
-        return mapper.toDto(category);
+        return mapper.toDto(getEntityById(id));
     }
 
     public Category getEntityById(Long id) {
@@ -60,6 +60,22 @@ public class CategoryService {
                 ));
     }
 
+    /**
+     * Moves the stored book count of a category by {@code delta}; called by every path that adds,
+     * removes or re-categorizes books, inside its transaction.
+     */
+    public void adjustBookCount(Long id, long delta) {
+        categoryRepository.addToBookCount(id, delta);
+    }
+
+    /**
+     * Recomputes every stored book count from the books table, for data written around the services.
+     */
+    @Transactional
+    public int recountBooks() {
+        return categoryRepository.recountBooks();
+    }
+
     @Transactional
     public CategoryDto update(Long id, CategoryDto dto) {
         Category category = categoryRepository.findById(id)
@@ -69,7 +85,10 @@ public class CategoryService {
                         HttpStatus.NOT_FOUND.value()
                 ));
 
-        if (dto.name() != null) category.setName(dto.name());
+        if (dto.name() != null && !dto.name().equals(category.getName())) {
+            category.setName(dto.name());
+            eventPublisher.publishEvent(new CategoryChangedEvent(category.getId()));
+        }
 
         Category saved = categoryRepository.save(category);
         return mapper.toDto(saved);
@@ -83,6 +102,7 @@ public class CategoryService {
                         HttpStatus.NOT_FOUND.value()
                 ));
         categoryRepository.delete(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
     }
 
 }
@@ -0,0 +1,236 @@
+package md.usm.bookstore.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import md.usm.bookstore.exception.StoreException;
+import md.usm.bookstore.model.IdempotencyRecord;
+import md.usm.bookstore.repository.IdempotencyRecordRepository;
+import md.usm.bookstore.security.AuthenticatedUser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static md.usm.bookstore.utils.ErrorType.BAD_REQUEST;
+
+/**
+ * Runs a request at most once per user and {@code Idempotency-Key} within the retention window.
+ * <p>
+ * Responses are kept in a bounded in-memory cache and in {@code idempotency_keys}; the row is written
+ * in the same transaction as the change, so a retry that lands after a restart or on another node
+ * still finds it. A repeat is answered from memory, or from the table on a miss, without running the
+ * request again, and a repeat that arrives while the first one is still running waits for it and
+ * gets the same outcome. Reusing a key for a different request is rejected.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final Cache<Scope, StoredResponse> responses;
+    private final Map<Scope, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final Duration retention;
+
+    private final Counter executions;
+    private final Counter memoryReplays;
+    private final Counter databaseReplays;
+    private final Counter coalesced;
+
+    public IdempotencyService(IdempotencyRecordRepository repository, ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                              @Value("${idempotency.retention-ms:86400000}") long retentionMs,
+                              @Value("${idempotency.max-entries:10000}") long maxEntries) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.retention = Duration.ofMillis(retentionMs);
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(retention)
+                .build();
+
+        this.executions = Counter.builder("idempotency.requests").tag("outcome", "executed").register(meterRegistry);
+        this.memoryReplays = Counter.builder("idempotency.requests").tag("outcome", "replayed-memory").register(meterRegistry);
+        this.databaseReplays = Counter.builder("idempotency.requests").tag("outcome", "replayed-database").register(meterRegistry);
+        this.coalesced = Counter.builder("idempotency.requests").tag("outcome", "coalesced").register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code action} unless {@code user} already sent {@code key}, in which case the stored
+     * response is returned. Without a key the action simply runs. Failed actions are not stored,
+     * so the client may retry them with the same key.
+     */
+    public <T> T execute(AuthenticatedUser user, String key, String operation, Object request,
+                         Class<T> type, Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new StoreException(
+                    HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters",
+                    BAD_REQUEST.name(),
+                    HttpStatus.BAD_REQUEST.value()
+            );
+        }
+
+        Scope scope = new Scope(user.id(), key);
+        String fingerprint = fingerprint(operation, request);
+
+        StoredResponse stored = responses.getIfPresent(scope);
+        if (stored != null && !stored.isExpiredAt(System.currentTimeMillis())) {
+            memoryReplays.increment();
+            return replay(stored, fingerprint, type);
+        }
+
+        CompletableFuture<StoredResponse> first = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(scope, first);
+        if (running != null) {
+            coalesced.increment();
+            return replay(await(running), fingerprint, type);
+        }
+
+        try {
+            Outcome<T> outcome = executeOnce(scope, fingerprint, type, action);
+            responses.put(scope, outcome.stored());
+            first.complete(outcome.stored());
+            return outcome.value();
+        } catch (RuntimeException e) {
+            first.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(scope, first);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        repository.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+    }
+
+    private <T> Outcome<T> executeOnce(Scope scope, String fingerprint, Class<T> type, Supplier<T> action) {
+        try {
+            return transaction.execute(status -> {
+                IdempotencyRecord record = repository.findByUserIdAndIdempotencyKey(scope.userId(), scope.key()).orElse(null);
+                if (record != null && isLive(record)) {
+                    databaseReplays.increment();
+                    StoredResponse stored = toStoredResponse(record);
+                    return new Outcome<>(replay(stored, fingerprint, type), stored);
+                }
+                if (record != null) {
+                    // expired but not purged yet, it still holds the unique key
+                    repository.delete(record);
+                    repository.flush();
+                }
+
+                T value = action.get();
+                IdempotencyRecord saved = repository.saveAndFlush(
+                        new IdempotencyRecord(scope.userId(), scope.key(), fingerprint, write(value)));
+                executions.increment();
+                return new Outcome<>(value, toStoredResponse(saved));
+            });
+        } catch (DataIntegrityViolationException e) {
+            // another node committed the same key between the lookup and the insert, and its change won
+            IdempotencyRecord record = repository.findByUserIdAndIdempotencyKey(scope.userId(), scope.key())
+                    .filter(this::isLive)
+                    .orElseThrow(() -> e);
+            databaseReplays.increment();
+            StoredResponse stored = toStoredResponse(record);
+            return new Outcome<>(replay(stored, fingerprint, type), stored);
+        }
+    }
+
+    private boolean isLive(IdempotencyRecord record) {
+        return record.getCreatedAt().isAfter(LocalDateTime.now().minus(retention));
+    }
+
+    private StoredResponse toStoredResponse(IdempotencyRecord record) {
+        long age = Duration.between(record.getCreatedAt(), LocalDateTime.now()).toMillis();
+        return new StoredResponse(record.getFingerprint(), record.getResponseBody(),
+                System.currentTimeMillis() - age + retention.toMillis());
+    }
+
+    private <T> T replay(StoredResponse stored, String fingerprint, Class<T> type) {
+        if (!stored.fingerprint().equals(fingerprint)) {
+            throw new StoreException(
+                    HEADER + " was already used for a different request",
+                    BAD_REQUEST.name(),
+                    HttpStatus.UNPROCESSABLE_ENTITY.value()
+            );
+        }
+        try {
+            return objectMapper.readValue(stored.body(), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response cannot be read as " + type.getSimpleName(), e);
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response cannot be stored", e);
+        }
+    }
+
+    private String fingerprint(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Request cannot be fingerprinted", e);
+        }
+    }
+
+    private static StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record Scope(long userId, String key) {
+    }
+
+    private record StoredResponse(String fingerprint, String body, long expiresAt) {
+
+        boolean isExpiredAt(long now) {
+            return now > expiresAt;
+        }
+    }
+
+    private record Outcome<T>(T value, StoredResponse stored) {
+    }
+
+}
@@ -0,0 +1,140 @@
+package md.usm.bookstore.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import md.usm.bookstore.exception.StoreException;
+import md.usm.bookstore.model.BaseEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static md.usm.bookstore.utils.ErrorType.CONFLICT;
+import static md.usm.bookstore.utils.ErrorType.PRECONDITION_FAILED;
+
+/**
+ * Read-modify-write updates under optimistic locking, with a bounded merge-retry.
+ * <p>
+ * An update is described by the fields it asks for. Only fields that differ from the entity as
+ * first read count as changes, so a client sending back a whole resource does not overwrite what
+ * it left alone. When the version check fails at flush, the entity is read again in a fresh
+ * transaction: if the winning update touched none of the changed fields the two commute and the
+ * changes are applied on top of it, otherwise the request fails with 409.
+ * <p>
+ * Conflicts are counted in {@code optimistic.conflicts}, tagged by entity and outcome.
+ */
+@Component
+public class OptimisticRetry {
+
+    private final TransactionTemplate transaction;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+
+    public OptimisticRetry(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                           @Value("${optimistic.max-attempts:3}") int maxAttempts) {
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    /**
+     * @param entity          name used in messages and metric tags
+     * @param expectedVersion version from {@code If-Match}, or null to skip the precondition
+     * @param requested       requested field values, null values are left out by the caller
+     * @param load            reads the entity and runs any access checks, once per attempt
+     * @param fields          current values of the fields {@code requested} may hold
+     * @param apply           applies the changed fields and returns the response
+     */
+    public <E extends BaseEntity, T> T update(String entity, Long expectedVersion, Map<String, Object> requested,
+                                              Supplier<E> load, Function<E, Map<String, Object>> fields,
+                                              BiFunction<E, Map<String, Object>, T> apply) {
+        Merge merge = new Merge();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.execute(status -> {
+                    E current = load.get();
+                    Map<String, Object> values = fields.apply(current);
+                    if (merge.base == null) {
+                        checkVersion(entity, current, expectedVersion);
+                        merge.base = values;
+                        merge.changes = changes(values, requested);
+                    } else {
+                        checkDisjoint(entity, merge, values);
+                    }
+                    return apply.apply(current, merge.changes);
+                });
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempt >= maxAttempts) {
+                    count(entity, "exhausted");
+                    throw conflict(entity);
+                }
+                count(entity, "retried");
+            }
+        }
+    }
+
+    private void checkVersion(String entity, BaseEntity current, Long expectedVersion) {
+        if (expectedVersion != null && expectedVersion != current.getVersion()) {
+            count(entity, "precondition-failed");
+            throw new StoreException(
+                    capitalize(entity) + " was modified, current version is " + current.getVersion(),
+                    PRECONDITION_FAILED.name(),
+                    HttpStatus.PRECONDITION_FAILED.value()
+            );
+        }
+    }
+
+    private void checkDisjoint(String entity, Merge merge, Map<String, Object> values) {
+        for (String field : merge.changes.keySet()) {
+            if (!Objects.equals(merge.base.get(field), values.get(field))) {
+                count(entity, "rejected");
+                throw conflict(entity);
+            }
+        }
+    }
+
+    private static Map<String, Object> changes(Map<String, Object> base, Map<String, Object> requested) {
+        Map<String, Object> changes = new HashMap<>();
+        requested.forEach((field, value) -> {
+            if (value != null && !Objects.equals(base.get(field), value)) {
+                changes.put(field, value);
+            }
+        });
+        return changes;
+    }
+
+    private StoreException conflict(String entity) {
+        return new StoreException(
+                capitalize(entity) + " was modified concurrently, reload it and try again",
+                CONFLICT.name(),
+                HttpStatus.CONFLICT.value()
+        );
+    }
+
+    private void count(String entity, String outcome) {
+        Counter.builder("optimistic.conflicts")
+                .tag("entity", entity)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String capitalize(String entity) {
+        return Character.toUpperCase(entity.charAt(0)) + entity.substring(1);
+    }
+
+    private static final class Merge {
+        Map<String, Object> base;
+        Map<String, Object> changes;
+    }
+}
@@ -2,25 +2,34 @@ package md.usm.bookstore.service;
 
 
 import md.usm.bookstore.dto.BookDto;
+import md.usm.bookstore.dto.CursorPageDto;
 import md.usm.bookstore.dto.OrderDto;
 import md.usm.bookstore.dto.PaymentDto;
+import md.usm.bookstore.event.OrderCreatedEvent;
 import md.usm.bookstore.exception.StoreException;
 import md.usm.bookstore.model.*;
 import md.usm.bookstore.repository.OrderRepository;
+import md.usm.bookstore.repository.projection.BookLink;
+import md.usm.bookstore.repository.projection.OrderBookRow;
+import md.usm.bookstore.repository.projection.OrderRow;
+import md.usm.bookstore.security.AuthenticatedUser;
+import md.usm.bookstore.utils.Cursor;
 import md.usm.bookstore.utils.Mapper;
 import md.usm.bookstore.utils.Utils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.security.Principal;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static md.usm.bookstore.utils.ErrorType.*;
 
@@ -30,15 +39,22 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final Mapper mapper;
     private final BookService bookService;
+    private final UserService userService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OptimisticRetry optimisticRetry;
 
-    public OrderService(OrderRepository orderRepository, Mapper mapper, BookService bookService) {
+    public OrderService(OrderRepository orderRepository, Mapper mapper, BookService bookService, UserService userService,
+                        ApplicationEventPublisher eventPublisher, OptimisticRetry optimisticRetry) {
         this.orderRepository = orderRepository;
         this.mapper = mapper;
         this.bookService = bookService;
+        this.userService = userService;
+        this.eventPublisher = eventPublisher;
+        this.optimisticRetry = optimisticRetry;
     }
 
     @Transactional
-    public OrderDto create(OrderDto orderDto, User user) {
+    public OrderDto create(OrderDto orderDto, AuthenticatedUser user) {
         if (Utils.isNullOrEmpty(orderDto.books())) {
             throw new StoreException(
                     "Books cannot be null or empty",
@@ -55,17 +71,34 @@ public class OrderService {
         order.setBooks(books);
         order.setOrderDate(LocalDateTime.now());
         order.setStatus(OrderStatus.CREATED);
-        order.setUser(user);
+        order.setUser(userService.getReferenceById(user.id()));
 
-        return mapper.toDto(orderRepository.save(order));
+        Order saved = orderRepository.save(order);
+        eventPublisher.publishEvent(new OrderCreatedEvent(saved.getId(), books.stream().map(Book::getId).toList()));
+        return mapper.toDto(saved);
     }
 
+    /**
+     * Admin listing: the page of order rows, then the books of every order on it in one query,
+     * so the statement count does not grow with the page size.
+     */
+    @Transactional(readOnly = true)
     public Page<OrderDto> getAll(Pageable pageable) {
-        return orderRepository.findAll(pageable)
-                .map(mapper::toDto);
+        Page<OrderRow> rows = orderRepository.findAllRows(pageable);
+        Map<Long, List<BookDto>> books = findBooks(rows.getContent());
+        return rows.map(row -> mapper.toDto(row, books.getOrDefault(row.id(), List.of())));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageDto<OrderDto> getAllAfter(String after, int size) {
+        List<OrderRow> rows = orderRepository.findNextRows(Cursor.decode(after), Cursor.limit(size));
+        // the extra row only tells whether there is a next page, its books are not needed
+        Map<Long, List<BookDto>> books = findBooks(rows.subList(0, Math.min(size, rows.size())));
+        return Cursor.pageByKey(rows.stream().map(row -> mapper.toDto(row, books.getOrDefault(row.id(), List.of()))).toList(),
+                size, OrderDto::id);
     }
 
-    public OrderDto getById(Long id, User user) {
+    public OrderDto getById(Long id, AuthenticatedUser user) {
         Order order = orderRepository.findByIdWithBooksAndUser(id);
         if (order == null) {
             throw new StoreException(
@@ -89,24 +122,27 @@ public class OrderService {
                 ));
     }
 
-    @Transactional
-    public OrderDto update(Long id, OrderDto orderDto, User user) {
-        Order order = getEntityById(id);
-        User userOfTheOrder = order.getUser();
-
-        checkPermission(userOfTheOrder, user);
-        checkStatus(order);
-
-        if (orderDto.orderDate() != null) order.setOrderDate(orderDto.orderDate());
-        if (orderDto.books() != null) {
-            Set<Book> books = bookService.getAllByIds(
-                    orderDto.books().stream().map(BookDto::id).filter(Objects::nonNull).toList()
-            );
-            order.setBooks(books);
-        }
+    public OrderDto update(Long id, OrderDto orderDto, AuthenticatedUser user) {
+        return update(id, orderDto, user, null);
+    }
 
-        Order saved = orderRepository.save(order);
-        return mapper.toDto(saved);
+    /**
+     * Applies the fields of {@code orderDto} that differ from the stored order, see {@link OptimisticRetry}.
+     *
+     * @param expectedVersion version the client based the change on ({@code If-Match}), or null
+     */
+    public OrderDto update(Long id, OrderDto orderDto, AuthenticatedUser user, Long expectedVersion) {
+        Map<String, Object> requested = new HashMap<>();
+        requested.put("orderDate", orderDto.orderDate());
+        requested.put("books", orderDto.books() == null ? null
+                : orderDto.books().stream().map(BookDto::id).filter(Objects::nonNull).collect(Collectors.toSet()));
+
+        return optimisticRetry.update("order", expectedVersion, requested, () -> {
+            Order order = getEntityById(id);
+            checkPermission(order.getUser(), user);
+            checkStatus(order);
+            return order;
+        }, this::fields, this::apply);
     }
 
     public void delete(Long id) {
@@ -114,28 +150,72 @@ public class OrderService {
         orderRepository.delete(existing);
     }
 
-    public Page<OrderDto> getMyOrders(User user, Pageable pageable) {
-        Page<Order> orders = orderRepository.findByUserId(user.getId(), pageable);
-        List<Order> allWithBooks = orderRepository.findAllWithBooks(orders.getContent());
-        long total = orderRepository.countByUserId(user.getId());
-
-        return new PageImpl<>(allWithBooks.stream().map(mapper::toDto).toList(), pageable, total);
+    @Transactional(readOnly = true)
+    public Page<OrderDto> getMyOrders(AuthenticatedUser user, Pageable pageable) {
+        Page<OrderRow> rows = orderRepository.findRowsByUserId(user.id(), pageable);
+        Map<Long, List<BookDto>> books = findBooks(rows.getContent());
+        return rows.map(row -> mapper.toDto(row, books.getOrDefault(row.id(), List.of())));
     }
 
-    public String payOrder(User user, Long orderId, PaymentDto paymentDto) {
-        Order order = getEntityById(orderId);
-        checkPermission(order.getUser(), user);
-        checkStatus(order);
+    /**
+     * Order history newest first, keyed by {@code (orderDate, id)}: one statement for the orders and
+     * their books, plus a count only when {@code includeTotal} is set.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<OrderDto> getMyOrdersAfter(AuthenticatedUser user, String after, int size, boolean includeTotal) {
+        int limit = Cursor.limit(size).max();
+        Cursor.DateKey key = Cursor.decodeDateKey(after);
+        List<OrderBookRow> rows = key == null
+                ? orderRepository.findHistory(user.id(), limit)
+                : orderRepository.findHistoryBefore(user.id(), key.date(), key.id(), limit);
+
+        CursorPageDto<OrderDto> page = Cursor.pageByDateKey(mapper.toOrderDtos(rows), size, OrderDto::orderDate, OrderDto::id);
+        return includeTotal ? page.withTotal(orderRepository.countByUserId(user.id())) : page;
+    }
 
-        order.setStatus(OrderStatus.PAYED);
-        orderRepository.save(order);
+    /**
+     * One conditional UPDATE decides the payment, so of two concurrent calls exactly one wins and no
+     * row lock is held while application code runs. The order is only read when nothing matched,
+     * to tell the caller why.
+     */
+    @Transactional
+    public String payOrder(AuthenticatedUser user, Long orderId, PaymentDto paymentDto) {
+        int payed = user.isAdmin()
+                ? orderRepository.payIfCreated(orderId, LocalDateTime.now())
+                : orderRepository.payIfCreatedByUser(orderId, user.id(), LocalDateTime.now());
+        if (payed == 0) {
+            Order order = getEntityById(orderId);
+            checkPermission(order.getUser(), user);
+            checkStatus(order);
+            throw new StoreException(
+                    "Order cannot be payed in status " + order.getStatus(),
+                    BAD_REQUEST.name(),
+                    HttpStatus.BAD_REQUEST.value()
+            );
+        }
 
         return String.format("Order successfully PAYED, book will be delivered at zip_code: %s", paymentDto.zipCode());
     }
 
-    private void checkPermission(User userOfTheOrder, User authenticatedUser) {
-        if (!authenticatedUser.getUsername().equals(userOfTheOrder.getUsername())
-                && !authenticatedUser.getRole().equals(Role.ADMIN)) {
+    private Map<String, Object> fields(Order order) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("orderDate", order.getOrderDate());
+        fields.put("books", order.getBooks().stream().map(Book::getId).collect(Collectors.toSet()));
+        return fields;
+    }
+
+    @SuppressWarnings("unchecked")
+    private OrderDto apply(Order order, Map<String, Object> changes) {
+        if (changes.containsKey("orderDate")) order.setOrderDate((LocalDateTime) changes.get("orderDate"));
+        if (changes.containsKey("books")) {
+            order.setBooks(bookService.getAllByIds(List.copyOf((Set<Long>) changes.get("books"))));
+        }
+        // flushed here so a lost race surfaces now and the response carries the new version
+        return mapper.toDto(orderRepository.saveAndFlush(order));
+    }
+
+    private void checkPermission(User userOfTheOrder, AuthenticatedUser authenticatedUser) {
+        if (!authenticatedUser.id().equals(userOfTheOrder.getId()) && !authenticatedUser.isAdmin()) {
             throw new StoreException(
                     "No permission",
                     FORBIDDEN.name(),
@@ -154,4 +234,11 @@ public class OrderService {
             );
         }
     }
+
+    private Map<Long, List<BookDto>> findBooks(List<OrderRow> rows) {
+        return rows.isEmpty()
+                ? Map.of()
+                : mapper.groupByOwner(orderRepository.findBookLinks(rows.stream().map(OrderRow::id).toList()), BookLink::ownerId, mapper::toDto);
+    }
+
 }
@@ -0,0 +1,154 @@
+package md.usm.bookstore.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import md.usm.bookstore.security.AuthenticatedUser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrent token store for logged-in users.
+ * <p>
+ * Every session gets the same time to live, so insertion order is also expiry order:
+ * the reaper and the capacity check only ever need to look at the head of {@link #expiryQueue}.
+ * Logged out tokens stay in the queue until it holds more than {@link #COMPACT_SLACK} entries beyond
+ * twice the live sessions, then it is compacted in one pass; logging in and out repeatedly within
+ * the TTL thus keeps it bounded at O(1) amortized cost per logout.
+ */
+@Component
+public class SessionStore {
+
+    private static final int COMPACT_SLACK = 1024;
+
+    private final Map<String, SessionToken> sessions = new ConcurrentHashMap<>();
+    private final Queue<String> expiryQueue = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() walks the whole queue
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Object evictionLock = new Object();
+
+    private final long ttlMs;
+    private final int maxEntries;
+
+    private final Counter expiredEvictions;
+    private final Counter capacityEvictions;
+    private final Timer lookupTimer;
+
+    public SessionStore(@Value("${session.ttl-ms:1200000}") long ttlMs,
+                        @Value("${session.max-entries:100000}") int maxEntries,
+                        MeterRegistry meterRegistry) {
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+
+        Gauge.builder("sessions.live", sessions, Map::size).register(meterRegistry);
+        Gauge.builder("sessions.queued", queued, AtomicInteger::get).register(meterRegistry);
+        this.expiredEvictions = Counter.builder("sessions.evictions").tag("cause", "expired").register(meterRegistry);
+        this.capacityEvictions = Counter.builder("sessions.evictions").tag("cause", "capacity").register(meterRegistry);
+        this.lookupTimer = Timer.builder("sessions.lookup").register(meterRegistry);
+    }
+
+    public void put(String token, AuthenticatedUser user) {
+        // check and insert together, or concurrent logins could all pass the check and overshoot the cap
+        synchronized (evictionLock) {
+            if (sessions.size() >= maxEntries) {
+                makeRoom();
+            }
+            sessions.put(token, new SessionToken(user, System.currentTimeMillis() + ttlMs));
+            expiryQueue.add(token);
+            queued.incrementAndGet();
+        }
+    }
+
+    public AuthenticatedUser get(String token) {
+        long start = System.nanoTime();
+        try {
+            SessionToken session = sessions.get(token);
+            if (session == null) return null;
+
+            if (session.isExpiredAt(System.currentTimeMillis())) {
+                if (sessions.remove(token, session)) {
+                    expiredEvictions.increment();
+                }
+                return null;
+            }
+            return session.user();
+        } finally {
+            lookupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void remove(String token) {
+        if (sessions.remove(token) != null && queueNeedsCompaction()) {
+            compactQueue();
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    @Scheduled(fixedDelayString = "${session.reaper-interval-ms:30000}")
+    public void evictExpired() {
+        synchronized (evictionLock) {
+            long now = System.currentTimeMillis();
+            String head;
+            while ((head = expiryQueue.peek()) != null) {
+                SessionToken session = sessions.get(head);
+                if (session != null && !session.isExpiredAt(now)) {
+                    break;
+                }
+                expiryQueue.poll();
+                queued.decrementAndGet();
+                if (session != null && sessions.remove(head, session)) {
+                    expiredEvictions.increment();
+                }
+            }
+        }
+    }
+
+    private void makeRoom() {
+        evictExpired();
+        synchronized (evictionLock) {
+            String head;
+            while (sessions.size() >= maxEntries && (head = expiryQueue.poll()) != null) {
+                queued.decrementAndGet();
+                if (sessions.remove(head) != null) {
+                    capacityEvictions.increment();
+                }
+            }
+        }
+    }
+
+    private boolean queueNeedsCompaction() {
+        return queued.get() > 2L * sessions.size() + COMPACT_SLACK;
+    }
+
+    private void compactQueue() {
+        synchronized (evictionLock) {
+            // another logout may have compacted it while this one waited for the lock
+            if (!queueNeedsCompaction()) return;
+            expiryQueue.removeIf(token -> {
+                if (sessions.containsKey(token)) return false;
+                queued.decrementAndGet();
+                return true;
+            });
+        }
+    }
+
+    private record SessionToken(AuthenticatedUser user, long expiresAt) {
+
+        boolean isExpiredAt(long now) {
+            return now > expiresAt;
+        }
+    }
+
+}
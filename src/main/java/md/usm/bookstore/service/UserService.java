@@ -1,23 +1,25 @@
 package md.usm.bookstore.service;
 
+import md.usm.bookstore.dto.CursorPageDto;
 import md.usm.bookstore.dto.RegistrationRequestDto;
 import md.usm.bookstore.dto.UserDto;
 import md.usm.bookstore.exception.StoreException;
 import md.usm.bookstore.model.Role;
 import md.usm.bookstore.model.User;
 import md.usm.bookstore.repository.UserRepository;
+import md.usm.bookstore.security.AuthenticatedUser;
+import md.usm.bookstore.security.PasswordHasher;
+import md.usm.bookstore.security.TokenManager;
+import md.usm.bookstore.utils.Cursor;
 import md.usm.bookstore.utils.Mapper;
-import org.mindrot.jbcrypt.BCrypt;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import java.util.Set;
 
 import static md.usm.bookstore.utils.ErrorType.*;
 
@@ -26,26 +28,38 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final Mapper mapper;
-    private final Map<String, SessionToken> sessions = new HashMap<>();
-    private static final long TOKEN_VALIDITY_MS = 20 * 60 * 1000;
+    private final TokenManager tokenManager;
+    private final PasswordHasher passwordHasher;
+    private final TransactionTemplate transaction;
 
-    public UserService(UserRepository userRepository, Mapper mapper) {
+    public UserService(UserRepository userRepository, Mapper mapper, TokenManager tokenManager, PasswordHasher passwordHasher,
+                       PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.mapper = mapper;
+        this.tokenManager = tokenManager;
+        this.passwordHasher = passwordHasher;
+        this.transaction = new TransactionTemplate(transactionManager);
     }
 
-    @Transactional
+    /**
+     * The password is hashed before the transaction starts, so a registration waiting for the
+     * hashing pool does not hold a database connection.
+     */
     public UserDto create(RegistrationRequestDto registrationRequestDto) {
-        checkUsernameUnique(registrationRequestDto.username());
+        String password = hashPassword(registrationRequestDto.password());
 
-        User user = new User();
-        user.setRole(Role.USER);
-        user.setPassword(hashPassword(registrationRequestDto.password()));
-        user.setUsername(registrationRequestDto.username());
-        user.setEmail(registrationRequestDto.email());
+        return transaction.execute(status -> {
+            checkUsernameUnique(registrationRequestDto.username());
 
-        User saved = userRepository.save(user);
-        return mapper.toDto(saved);
+            User user = new User();
+            user.setRole(Role.USER);
+            user.setPassword(password);
+            user.setUsername(registrationRequestDto.username());
+            user.setEmail(registrationRequestDto.email());
+
+            User saved = userRepository.save(user);
+            return mapper.toDto(saved);
+        });
     }
 
     public Page<UserDto> getAll(Pageable pageable) {
@@ -53,6 +67,10 @@ public class UserService {
                 .map(mapper::toDto);
     }
 
+    public CursorPageDto<UserDto> getAllAfter(String after, int size) {
+        return Cursor.page(userRepository.findNextPage(Cursor.decode(after), Cursor.limit(size)), size, mapper::toDto);
+    }
+
     public UserDto getById(Long id) {
         return mapper.toDto(getEntityById(id));
     }
@@ -75,29 +93,39 @@ public class UserService {
                 ));
     }
 
-    public UserDto getProfile(User user) {
-        return mapper.toDto(user);
+    public User getReferenceById(Long id) {
+        return userRepository.getReferenceById(id);
     }
 
-    @Transactional
-    public UserDto update(Long id, UserDto userDto, User userAuthenticated) {
-        User userToUpdate = getEntityById(id);
+    public UserDto getProfile(AuthenticatedUser user) {
+        return getById(user.id());
+    }
 
-        if (!userToUpdate.getUsername().equals(userAuthenticated.getUsername()) && userAuthenticated.getRole().equals(Role.USER)) {
+    /**
+     * Like {@link #create}, hashes a new password before the transaction starts; the permission
+     * check needs no database access, so a forbidden request is refused before hashing.
+     */
+    public UserDto update(Long id, UserDto userDto, AuthenticatedUser userAuthenticated) {
+        if (!id.equals(userAuthenticated.id()) && userAuthenticated.role() == Role.USER) {
             throw new StoreException(
                     "No permission to perform this action",
                     FORBIDDEN.name(),
                     HttpStatus.FORBIDDEN.value()
             );
         }
+        String password = userDto.password() != null ? hashPassword(userDto.password()) : null;
+
+        return transaction.execute(status -> {
+            User userToUpdate = getEntityById(id);
 
-        checkUsernameUnique(userDto.username());
+            checkUsernameUnique(userDto.username());
 
-        if (userDto.username() != null) userToUpdate.setUsername(userDto.username());
-        if (userDto.email() != null) userToUpdate.setEmail(userDto.email());
-        if (userDto.password() != null) userToUpdate.setPassword(hashPassword(userDto.password()));
+            if (userDto.username() != null) userToUpdate.setUsername(userDto.username());
+            if (userDto.email() != null) userToUpdate.setEmail(userDto.email());
+            if (password != null) userToUpdate.setPassword(password);
 
-        return mapper.toDto(userRepository.save(userToUpdate));
+            return mapper.toDto(userRepository.save(userToUpdate));
+        });
     }
 
     public void delete(Long id) {
@@ -116,11 +144,11 @@ public class UserService {
     }
 
     private String hashPassword(String password) {
-        return BCrypt.hashpw(password, BCrypt.gensalt());
+        return passwordHasher.hash(password);
     }
 
     public boolean verifyPassword(String rawPassword, String hashedPassword) {
-        return BCrypt.checkpw(rawPassword, hashedPassword);
+        return passwordHasher.verify(rawPassword, hashedPassword);
     }
 
     public String login(String username, String password) {
@@ -133,30 +161,18 @@ public class UserService {
             );
         }
 
-        String token = UUID.randomUUID().toString();
-        long expiresAt = System.currentTimeMillis() + TOKEN_VALIDITY_MS;
-        sessions.put(token, new SessionToken(user, expiresAt));
-
-        return token;
+        return tokenManager.issue(AuthenticatedUser.of(user));
     }
 
     public void logout(String token) {
-        sessions.remove(token);
+        tokenManager.revoke(token);
     }
 
-    public User getUserByToken(String token) {
-        SessionToken session = sessions.get(token);
-        if (session == null) return null;
-
-        if (System.currentTimeMillis() > session.getExpiresAt()) {
-            sessions.remove(token);
-            return null;
-        }
-
-        return session.getUser();
+    public AuthenticatedUser getUserByToken(String token) {
+        return tokenManager.resolve(token);
     }
 
-    public User validateToken(String token) {
+    public AuthenticatedUser validateToken(String token) {
         if (token == null || token.isBlank()) {
             throw new StoreException(
                     "Authentication required: token is missing",
@@ -165,7 +181,7 @@ public class UserService {
             );
         }
 
-        User user = getUserByToken(token);
+        AuthenticatedUser user = getUserByToken(token);
         if (user == null) {
             throw new StoreException(
                     "Invalid or expired token",
@@ -176,39 +192,12 @@ public class UserService {
         return user;
     }
 
-    public User validateRole(String token, Role requiredRole) {
-        User user = validateToken(token);
-        if (user.getRole() != requiredRole) {
-            throw new StoreException("Insufficient permissions", FORBIDDEN.name(), HttpStatus.FORBIDDEN.value());
-        }
-        return user;
-    }
-
-    public User validateRoles(String token, Role... allowedRoles) {
-        User user = validateToken(token);
-        boolean allowed = Arrays.stream(allowedRoles).anyMatch(r -> r == user.getRole());
-        if (!allowed) {
+    public AuthenticatedUser validateRoles(String token, Set<Role> allowedRoles) {
+        AuthenticatedUser user = validateToken(token);
+        if (!allowedRoles.contains(user.role())) {
             throw new StoreException("Insufficient permissions", FORBIDDEN.name(), HttpStatus.FORBIDDEN.value());
         }
         return user;
     }
 
-    private static class SessionToken {
-        private final User user;
-        private final long expiresAt;
-
-        public SessionToken(User user, long expiresAt) {
-            this.user = user;
-            this.expiresAt = expiresAt;
-        }
-
-        public User getUser() {
-            return user;
-        }
-
-        public long getExpiresAt() {
-            return expiresAt;
-        }
-    }
-
 }
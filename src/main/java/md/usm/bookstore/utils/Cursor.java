@@ -0,0 +1,106 @@
+package md.usm.bookstore.utils;
+
+import md.usm.bookstore.dto.CursorPageDto;
+import md.usm.bookstore.exception.StoreException;
+import md.usm.bookstore.model.BaseEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import static md.usm.bookstore.utils.ErrorType.VALIDATION_ERROR;
+
+/**
+ * Opaque keyset cursors for {@code WHERE id > :lastId ORDER BY id} paging, and for newest-first
+ * listings ordered by {@code date DESC, id DESC}.
+ */
+public final class Cursor {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private Cursor() {
+    }
+
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return 0L;
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new StoreException("Invalid cursor", VALIDATION_ERROR.name(), HttpStatus.BAD_REQUEST.value());
+        }
+    }
+
+    public static String encode(LocalDateTime date, long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((date + "_" + id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return the position after which the next newest-first page starts, or {@code null} for the first page
+     */
+    public static DateKey decodeDateKey(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int separator = key.lastIndexOf('_');
+            return new DateKey(LocalDateTime.parse(key.substring(0, separator)), Long.parseLong(key.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException e) {
+            throw new StoreException("Invalid cursor", VALIDATION_ERROR.name(), HttpStatus.BAD_REQUEST.value());
+        }
+    }
+
+    /**
+     * One row more than requested, so that the page knows whether there is a next one without counting.
+     */
+    public static Limit limit(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new StoreException(
+                    "Page size must be between 1 and " + MAX_PAGE_SIZE,
+                    VALIDATION_ERROR.name(),
+                    HttpStatus.BAD_REQUEST.value()
+            );
+        }
+        return Limit.of(size + 1);
+    }
+
+    public static <E extends BaseEntity, T> CursorPageDto<T> page(List<E> rows, int size, Function<E, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? encode(content.getLast().getId()) : null;
+        return new CursorPageDto<>(content.stream().map(mapper).toList(), size, nextCursor, null);
+    }
+
+    /**
+     * Same as {@link #pageByKey(List, int, ToLongFunction)} for newest-first rows.
+     */
+    public static <T> CursorPageDto<T> pageByDateKey(List<T> rows, int size, Function<T, LocalDateTime> date, ToLongFunction<T> id) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? encode(date.apply(content.getLast()), id.applyAsLong(content.getLast())) : null;
+        return new CursorPageDto<>(content, size, nextCursor, null);
+    }
+
+    /**
+     * Same as {@link #page(List, int, Function)} for rows that are already DTOs.
+     */
+    public static <T> CursorPageDto<T> pageByKey(List<T> rows, int size, ToLongFunction<T> id) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? encode(id.applyAsLong(content.getLast())) : null;
+        return new CursorPageDto<>(content, size, nextCursor, null);
+    }
+
+    public record DateKey(LocalDateTime date, long id) {
+    }
+}
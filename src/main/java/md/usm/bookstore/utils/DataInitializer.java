@@ -5,6 +5,7 @@ import md.usm.bookstore.repository.AuthorRepository;
 import md.usm.bookstore.repository.BookRepository;
 import md.usm.bookstore.repository.CategoryRepository;
 import md.usm.bookstore.repository.UserRepository;
+import md.usm.bookstore.service.CategoryService;
 import org.mindrot.jbcrypt.BCrypt;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
@@ -21,7 +22,8 @@ public class DataInitializer {
     CommandLineRunner init(UserRepository userRepository,
                            BookRepository bookRepository,
                            AuthorRepository authorRepository,
-                           CategoryRepository categoryRepository) {
+                           CategoryRepository categoryRepository,
+                           CategoryService categoryService) {
         return _ -> {
             // Admin user
             if (userRepository.findByUsername("admin").isEmpty()) {
@@ -70,6 +72,7 @@ public class DataInitializer {
                     book7,
                     book8, book9
             ));
+            categoryService.recountBooks();
         };
     }
 }
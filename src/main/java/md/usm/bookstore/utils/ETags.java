@@ -0,0 +1,47 @@
+package md.usm.bookstore.utils;
+
+import md.usm.bookstore.exception.StoreException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Strong entity tags built from entity versions: version 3 is sent as {@code "3"}.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static <T> ResponseEntity<T> ok(T body, Long version) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (version != null) {
+            response.eTag("\"" + version + "\"");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * The version an {@code If-Match} header asks for, or null when it is absent or {@code *}.
+     */
+    public static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.valueOf(tag);
+        } catch (NumberFormatException e) {
+            throw new StoreException(
+                    "Invalid If-Match header",
+                    ErrorType.VALIDATION_ERROR.name(),
+                    HttpStatus.BAD_REQUEST.value()
+            );
+        }
+    }
+}
@@ -4,5 +4,8 @@ public enum ErrorType {
     VALIDATION_ERROR,
     NOT_FOUND,
     FORBIDDEN,
-    BAD_REQUEST
+    BAD_REQUEST,
+    CONFLICT,
+    PRECONDITION_FAILED,
+    SERVICE_UNAVAILABLE
 }
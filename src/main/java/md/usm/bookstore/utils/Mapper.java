@@ -2,11 +2,15 @@ package md.usm.bookstore.utils;
 
 import md.usm.bookstore.dto.*;
 import md.usm.bookstore.model.*;
+import md.usm.bookstore.repository.projection.*;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
@@ -45,6 +49,18 @@ public class Mapper {
         );
     }
 
+    public AuthorDto toDto(AuthorRow row, List<BookDto> books) {
+        return new AuthorDto(row.id(), row.firstName(), row.lastName(), books, row.createdAt());
+    }
+
+    public AuthorSummaryDto toDto(AuthorSummaryRow row, List<String> titles) {
+        return new AuthorSummaryDto(row.id(), row.firstName(), row.lastName(), row.bookCount(), titles, row.createdAt());
+    }
+
+    public AuthorDto toDto(AuthorLink link) {
+        return new AuthorDto(link.id(), link.firstName(), link.lastName(), null, link.createdAt());
+    }
+
     public Author toEntity(AuthorDto dto) {
         if (dto == null) return null;
 
@@ -78,7 +94,8 @@ public class Mapper {
                 book.getPrice(),
                 book.getAuthors() == null ? null : book.getAuthors().stream().map(this::toAuthorDtoWithoutBooks).toList(),
                 book.getCategory() == null ? null : toCategoryDtoWithoutBooks(book.getCategory()),
-                book.getCreatedAt()
+                book.getCreatedAt(),
+                book.getVersion()
         );
     }
 
@@ -92,10 +109,32 @@ public class Mapper {
                 book.getPrice(),
                 null,
                 null,
-                book.getCreatedAt()
+                book.getCreatedAt(),
+                null
+        );
+    }
+
+    public BookDto toDto(BookRow row, List<AuthorDto> authors) {
+        return new BookDto(
+                row.id(),
+                row.title(),
+                row.isbn(),
+                row.price(),
+                authors,
+                row.categoryId() == null ? null : new CategoryDto(row.categoryId(), row.categoryName(), null, row.categoryCreatedAt()),
+                row.createdAt(),
+                row.version()
         );
     }
 
+    public BookDto toDtoWithoutAuthorCategory(BookRow row) {
+        return new BookDto(row.id(), row.title(), row.isbn(), row.price(), null, null, row.createdAt(), null);
+    }
+
+    public BookDto toDto(BookLink link) {
+        return new BookDto(link.id(), link.title(), link.isbn(), link.price(), null, null, link.createdAt(), null);
+    }
+
     public Book toEntity(BookDto dto) {
         if (dto == null) return null;
 
@@ -125,15 +164,10 @@ public class Mapper {
     public CategoryDto toDto(Category category) {
         if (category == null) return null;
 
-        List<BookDto> booksDto = category.getBooks() == null ? null :
-                category.getBooks().stream()
-                        .map(this::toDtoWithoutAuthorCategory)
-                        .collect(Collectors.toList());
-
         return new CategoryDto(
                 category.getId(),
                 category.getName(),
-                booksDto,
+                category.getBookCount(),
                 category.getCreatedAt()
         );
     }
@@ -149,6 +183,10 @@ public class Mapper {
         );
     }
 
+    public CategoryDto toDto(CategoryRow row) {
+        return new CategoryDto(row.id(), row.name(), row.bookCount(), row.createdAt());
+    }
+
     public Category toEntity(CategoryDto dto) {
         if (dto == null) return null;
 
@@ -156,14 +194,6 @@ public class Mapper {
         category.setId(dto.id());
         category.setName(dto.name());
 
-        if (dto.books() != null) {
-            category.setBooks(dto.books().stream()
-                    .map(this::toEntity)
-                    .collect(Collectors.toList()));
-        } else {
-            category.setBooks(new ArrayList<>());
-        }
-
         return category;
     }
 
@@ -184,10 +214,30 @@ public class Mapper {
                 order.getOrderDate(),
                 booksDto,
                 order.getCreatedAt(),
-                order.getStatus()
+                order.getStatus(),
+                order.getVersion()
         );
     }
 
+    public OrderDto toDto(OrderRow row, List<BookDto> books) {
+        return new OrderDto(row.id(), row.orderDate(), books, row.createdAt(), row.status(), null);
+    }
+
+    /**
+     * Folds order-book rows, one per book, back into orders, keeping the order of the rows.
+     */
+    public List<OrderDto> toOrderDtos(List<OrderBookRow> rows) {
+        Map<Long, OrderDto> orders = new LinkedHashMap<>();
+        for (OrderBookRow row : rows) {
+            OrderDto order = orders.computeIfAbsent(row.id(), id ->
+                    new OrderDto(row.id(), row.orderDate(), new ArrayList<>(), row.createdAt(), row.status(), null));
+            if (row.bookId() != null) {
+                order.books().add(new BookDto(row.bookId(), row.title(), row.isbn(), row.price(), null, null, row.bookCreatedAt(), null));
+            }
+        }
+        return List.copyOf(orders.values());
+    }
+
     public Order toEntity(OrderDto dto) {
         if (dto == null) return null;
 
@@ -206,6 +256,17 @@ public class Mapper {
         return order;
     }
 
+    /* =======================
+     *   PROJECTION GROUPING
+     * ======================= */
+
+    /**
+     * Groups the link rows of a child query by their owner and maps each to its DTO.
+     */
+    public <L, D> Map<Long, List<D>> groupByOwner(List<L> links, Function<L, Long> owner, Function<L, D> toDto) {
+        return links.stream().collect(Collectors.groupingBy(owner, Collectors.mapping(toDto, Collectors.toList())));
+    }
+
     /* =======================
      *       USER MAPPING
      * ======================= */
@@ -1,7 +1,11 @@
 package md.usm.bookstore;
 
 import md.usm.bookstore.dto.AuthorDto;
+import md.usm.bookstore.dto.AuthorSummaryDto;
+import md.usm.bookstore.exception.StoreException;
 import md.usm.bookstore.model.Author;
+import md.usm.bookstore.model.Book;
+import md.usm.bookstore.model.Category;
 import md.usm.bookstore.repository.*;
 import md.usm.bookstore.service.AuthorService;
 import md.usm.bookstore.utils.Mapper;
@@ -12,6 +16,12 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static md.usm.bookstore.utils.ErrorType.NOT_FOUND;
+import static md.usm.bookstore.utils.ErrorType.VALIDATION_ERROR;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -72,6 +82,27 @@ class AuthorServiceTest {
         assertEquals(saved.getFirstName(), result.firstName());
     }
 
+    @Test
+    void getEntityListById_ShouldKeepRequestOrderAndDropDuplicates() {
+        Author first = authorRepository.save(new Author("Doe", "John"));
+        Author second = authorRepository.save(new Author("Roe", "Jane"));
+
+        List<Author> result = authorService.getEntityListById(List.of(second.getId(), first.getId(), second.getId()));
+
+        assertEquals(List.of(second.getId(), first.getId()), result.stream().map(Author::getId).toList());
+    }
+
+    @Test
+    void getEntityListById_ShouldReportAllMissingIds() {
+        Author existing = authorRepository.save(new Author("Doe", "John"));
+
+        StoreException ex = assertThrows(StoreException.class,
+                () -> authorService.getEntityListById(List.of(-1L, existing.getId(), -2L)));
+
+        assertEquals("Authors not found with ids [-1, -2]", ex.getMessage());
+        assertEquals(NOT_FOUND.name(), ex.getErrorType());
+    }
+
     @Test
     void getAll_ShouldReturnPage() {
         authorRepository.save(mapper.toEntity(authorDto));
@@ -82,6 +113,33 @@ class AuthorServiceTest {
         assertEquals("John", page.getContent().get(0).firstName());
     }
 
+    @Test
+    void getSummaries_ShouldCountBooksAndListFirstTitles() {
+        Author prolific = authorRepository.save(mapper.toEntity(authorDto));
+        Author idle = authorRepository.save(new Author("Smith", "Jane"));
+        Category category = categoryRepository.save(new Category("Fiction"));
+        for (String title : List.of("Dune", "Children of Dune", "Emperor of Dune")) {
+            bookRepository.save(new Book(title, title, 10.0, List.of(prolific), category));
+        }
+
+        Map<Long, AuthorSummaryDto> summaries = authorService.getSummaries(PageRequest.of(0, 10), 2).getContent().stream()
+                .collect(Collectors.toMap(AuthorSummaryDto::id, summary -> summary));
+
+        assertEquals(3, summaries.get(prolific.getId()).bookCount());
+        assertEquals(List.of("Children of Dune", "Dune"), summaries.get(prolific.getId()).titles());
+        assertEquals(0, summaries.get(idle.getId()).bookCount());
+        assertTrue(summaries.get(idle.getId()).titles().isEmpty());
+        assertTrue(authorService.getSummaries(PageRequest.of(0, 10), 0).getContent().stream()
+                .allMatch(summary -> summary.titles().isEmpty()));
+    }
+
+    @Test
+    void getSummaries_ShouldRejectTooManyTitles() {
+        StoreException ex = assertThrows(StoreException.class,
+                () -> authorService.getSummaries(PageRequest.of(0, 10), AuthorService.MAX_SUMMARY_TITLES + 1));
+        assertEquals(VALIDATION_ERROR.name(), ex.getErrorType());
+    }
+
     @Test
     void update_ShouldModifyAndReturnDto() {
         Author saved = authorRepository.save(mapper.toEntity(authorDto));
@@ -0,0 +1,77 @@
+package md.usm.bookstore;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import md.usm.bookstore.dto.BookDto;
+import md.usm.bookstore.model.Author;
+import md.usm.bookstore.model.Book;
+import md.usm.bookstore.model.Category;
+import md.usm.bookstore.repository.*;
+import md.usm.bookstore.service.BookExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class BookExportServiceTest {
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    private BookExportService bookExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Author author;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        bookRepository.deleteAll();
+        categoryRepository.deleteAll();
+        authorRepository.deleteAll();
+
+        author = authorRepository.save(new Author("Herbert", "Frank"));
+        category = categoryRepository.save(new Category("Science Fiction"));
+    }
+
+    @Test
+    void export_ShouldWriteEveryBookAsOneJsonLineAcrossChunks() throws Exception {
+        int total = BookRepository.STREAM_FETCH_SIZE + 3;
+        List<Book> books = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            books.add(new Book("Dune " + i, "isbn-" + i, 10.0, new ArrayList<>(List.of(author)), category));
+        }
+        bookRepository.saveAll(books);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bookExportService.export(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(total, lines.length);
+        BookDto last = objectMapper.readValue(lines[total - 1], BookDto.class);
+        assertEquals("Dune " + (total - 1), last.title());
+        assertEquals("Frank", last.authors().getFirst().firstName());
+        assertEquals("Science Fiction", last.category().name());
+        assertTrue(out.toString(StandardCharsets.UTF_8).endsWith("}\n"));
+    }
+}
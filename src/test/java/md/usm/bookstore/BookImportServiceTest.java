@@ -0,0 +1,120 @@
+package md.usm.bookstore;
+
+import md.usm.bookstore.dto.BookDto;
+import md.usm.bookstore.dto.ImportReportDto;
+import md.usm.bookstore.model.Author;
+import md.usm.bookstore.model.Category;
+import md.usm.bookstore.repository.*;
+import md.usm.bookstore.service.BookImportService;
+import md.usm.bookstore.service.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class BookImportServiceTest {
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private BookService bookService;
+
+    private Author author;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        bookRepository.deleteAll();
+        categoryRepository.deleteAll();
+        authorRepository.deleteAll();
+
+        author = authorRepository.save(new Author("Le Guin", "Ursula"));
+        category = categoryRepository.save(new Category("Science Fiction"));
+    }
+
+    @Test
+    void importBooks_ShouldInsertValidNdjsonLinesAndReportTheRest() {
+        String body = String.join("\n",
+                line("The Dispossessed", "111", "12.5", author.getId(), category.getId()),
+                "{not json",
+                line("", "222", "10", author.getId(), category.getId()),
+                line("Unknown Author", "333", "10", 999_999L, category.getId()),
+                "",
+                line("The Left Hand of Darkness", "444", "14", author.getId(), category.getId()));
+
+        ImportReportDto report = bookImportService.importBooks(stream(body), MediaType.APPLICATION_NDJSON);
+
+        assertEquals(2, report.imported());
+        assertEquals(3, report.rejected());
+        assertEquals(List.of(2L, 3L, 4L), report.errors().stream().map(ImportReportDto.LineError::line).toList());
+        assertEquals("title: Title is required", report.errors().get(1).message());
+        assertEquals("Author not found with id 999999", report.errors().get(2).message());
+        assertEquals(2, bookRepository.count());
+        assertEquals(2, categoryRepository.findById(category.getId()).orElseThrow().getBookCount());
+
+        BookDto found = bookService.search("dispossessed", 10).getFirst();
+        assertEquals("Le Guin", found.authors().getFirst().lastName());
+        assertEquals(1, bookService.getById(found.id()).authors().size());
+    }
+
+    @Test
+    void importBooks_ShouldParseCsvWithHeaderAndQuotedFields() {
+        String body = "title,isbn,price,authorIds,categoryId\n"
+                + "\"Tales from Earthsea, Vol. 1\",555,9.99," + author.getId() + "," + category.getId() + "\n"
+                + "\"Say \"\"hi\"\"\",556,abc," + author.getId() + "," + category.getId() + "\n";
+
+        ImportReportDto report = bookImportService.importBooks(stream(body), BookImportService.TEXT_CSV);
+
+        assertEquals(1, report.imported());
+        assertEquals(1, report.rejected());
+        assertEquals(3, report.errors().getFirst().line());
+        assertEquals("Tales from Earthsea, Vol. 1", bookService.search("earthsea", 10).getFirst().title());
+    }
+
+    @Test
+    void importBooks_ShouldLinkRepeatedAuthorOnce() {
+        String csv = "\"Rocannon's World\",557,8.5,\"" + author.getId() + ";" + author.getId() + "\"," + category.getId() + "\n";
+        String ndjson = "{\"title\":\"Planet of Exile\",\"isbn\":\"558\",\"price\":8.5,\"authors\":[{\"id\":"
+                + author.getId() + "},{\"id\":" + author.getId() + "}],\"category\":{\"id\":" + category.getId() + "}}";
+
+        assertEquals(1, bookImportService.importBooks(stream(csv), BookImportService.TEXT_CSV).imported());
+        assertEquals(1, bookImportService.importBooks(stream(ndjson), MediaType.APPLICATION_NDJSON).imported());
+
+        for (String title : List.of("rocannon", "exile")) {
+            Long id = bookService.search(title, 10).getFirst().id();
+            assertEquals(1, bookService.getById(id).authors().size());
+        }
+        assertEquals(2, bookRepository.findIdsByAuthorId(author.getId()).size());
+    }
+
+    private static String line(String title, String isbn, String price, Long authorId, Long categoryId) {
+        return "{\"title\":\"" + title + "\",\"isbn\":\"" + isbn + "\",\"price\":" + price
+                + ",\"authors\":[{\"id\":" + authorId + "}],\"category\":{\"id\":" + categoryId + "}}";
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
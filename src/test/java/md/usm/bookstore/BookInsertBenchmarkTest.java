@@ -0,0 +1,119 @@
+package md.usm.bookstore;
+
+import jakarta.persistence.EntityManagerFactory;
+import md.usm.bookstore.dto.ImportReportDto;
+import md.usm.bookstore.model.Author;
+import md.usm.bookstore.model.Book;
+import md.usm.bookstore.model.Category;
+import md.usm.bookstore.repository.AuthorRepository;
+import md.usm.bookstore.repository.BookRepository;
+import md.usm.bookstore.repository.CategoryRepository;
+import md.usm.bookstore.service.BookImportService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Insert throughput of {@code saveAll} and of the bulk import. Skipped by default, run with
+ * {@code mvn test -Dtest=BookInsertBenchmarkTest -Dbenchmark=true}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.orm.jdbc.bind=WARN"
+})
+class BookInsertBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BookInsertBenchmarkTest.class);
+
+    private static final int BOOKS = 100_000;
+    private static final int CHUNK = 5_000;
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    BookImportService bookImportService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void saveAll_100kBooks() {
+        Author author = authorRepository.save(new Author("Bench", "Mark"));
+        Category category = categoryRepository.save(new Category("Benchmark"));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long existing = bookRepository.count();
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            statistics.clear();
+            long start = System.nanoTime();
+
+            for (int from = 0; from < BOOKS; from += CHUNK) {
+                List<Book> books = new ArrayList<>(CHUNK);
+                for (int i = from; i < from + CHUNK; i++) {
+                    books.add(new Book("Book " + i, "isbn-" + i, 10.0, List.of(author), category));
+                }
+                transaction.executeWithoutResult(status -> bookRepository.saveAll(books));
+            }
+
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            log.info("round {}: {} books in {} ms ({} books/s), {} statements prepared",
+                    round, BOOKS, elapsedMs, BOOKS * 1000 / Math.max(1, elapsedMs), statistics.getPrepareStatementCount());
+        }
+
+        assertEquals(existing + (long) BOOKS * ROUNDS, bookRepository.count());
+    }
+
+    @Test
+    void import_100kNdjsonRows() {
+        Author author = authorRepository.save(new Author("Mark", "Bench"));
+        Category category = categoryRepository.save(new Category("Import"));
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < BOOKS; i++) {
+            body.append("{\"title\":\"Book ").append(i).append("\",\"isbn\":\"isbn-").append(i)
+                    .append("\",\"price\":10.0,\"authors\":[{\"id\":").append(author.getId())
+                    .append("}],\"category\":{\"id\":").append(category.getId()).append("}}\n");
+        }
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            ImportReportDto report = bookImportService.importBooks(new ByteArrayInputStream(bytes), MediaType.APPLICATION_NDJSON);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            log.info("import round {}: {} books in {} ms ({} books/s)",
+                    round, report.imported(), elapsedMs, report.imported() * 1000 / Math.max(1, elapsedMs));
+            assertEquals(BOOKS, report.imported());
+        }
+    }
+}
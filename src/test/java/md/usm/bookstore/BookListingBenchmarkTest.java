@@ -0,0 +1,139 @@
+package md.usm.bookstore;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import md.usm.bookstore.dto.AuthorDto;
+import md.usm.bookstore.dto.BookDto;
+import md.usm.bookstore.model.Author;
+import md.usm.bookstore.model.Book;
+import md.usm.bookstore.model.Category;
+import md.usm.bookstore.repository.AuthorRepository;
+import md.usm.bookstore.repository.BookRepository;
+import md.usm.bookstore.repository.CategoryRepository;
+import md.usm.bookstore.service.BookService;
+import md.usm.bookstore.utils.Mapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Heap allocated per {@code GET /api/v1/book} page: hydrating entities and mapping them versus
+ * the constructor projections used by {@link BookService#getAll}. Skipped by default, run with
+ * {@code mvn test -Dtest=BookListingBenchmarkTest -Dbenchmark=true}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:listing-benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.orm.jdbc.bind=WARN"
+})
+class BookListingBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BookListingBenchmarkTest.class);
+
+    private static final int BOOKS = 2_000;
+    private static final int AUTHORS = 1_000;
+    private static final int CATEGORIES = 50;
+    private static final int PAGE_SIZE = 100;
+    private static final int WARMUP = 300;
+    private static final int ITERATIONS = 1_000;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    Mapper mapper;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Test
+    void getAll_AllocationPerPage() {
+        List<Author> authors = new ArrayList<>(AUTHORS);
+        for (int i = 0; i < AUTHORS; i++) {
+            authors.add(new Author("Last " + i, "First " + i));
+        }
+        authorRepository.saveAll(authors);
+        List<Category> categories = new ArrayList<>(CATEGORIES);
+        for (int i = 0; i < CATEGORIES; i++) {
+            categories.add(new Category("Category " + i));
+        }
+        categoryRepository.saveAll(categories);
+
+        List<Book> books = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            List<Author> bookAuthors = new ArrayList<>(List.of(authors.get(i % AUTHORS), authors.get((i * 7 + 3) % AUTHORS)));
+            books.add(new Book("Book " + i, "isbn-" + i, 10.0, bookAuthors, categories.get(i % CATEGORIES)));
+        }
+        bookRepository.saveAll(books);
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Supplier<List<BookDto>> entities = () -> readOnly.execute(status -> {
+            List<Book> page = entityManager
+                    .createQuery("SELECT b FROM Book b LEFT JOIN FETCH b.category", Book.class)
+                    .setFirstResult(PAGE_SIZE)
+                    .setMaxResults(PAGE_SIZE)
+                    .getResultList();
+            entityManager.createQuery("SELECT count(b) FROM Book b", Long.class).getSingleResult();
+            bookRepository.fetchAuthorsForBooks(page);
+            return page.stream().map(mapper::toDto).toList();
+        });
+        Supplier<List<BookDto>> projections = () -> bookService.getAll(PageRequest.of(1, PAGE_SIZE)).getContent();
+
+        assertEquals(summary(entities.get()), summary(projections.get()));
+        measure("entities + Mapper", entities);
+        measure("projections", projections);
+        measure("entities + Mapper", entities);
+        measure("projections", projections);
+    }
+
+    private static List<String> summary(List<BookDto> page) {
+        return page.stream()
+                .map(book -> book.id() + " " + book.category().name() + " "
+                        + book.authors().stream().map(AuthorDto::id).sorted().toList())
+                .toList();
+    }
+
+    private static void measure(String name, Supplier<List<BookDto>> page) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARMUP; i++) page.get();
+
+        long bytes = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) page.get();
+        long elapsed = System.nanoTime() - start;
+        bytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+
+        log.info("{}: {} bytes/page, {} us/page", name, bytes / ITERATIONS, elapsed / ITERATIONS / 1000);
+    }
+}
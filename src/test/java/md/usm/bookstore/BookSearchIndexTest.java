@@ -0,0 +1,86 @@
+package md.usm.bookstore;
+
+import md.usm.bookstore.dto.AuthorDto;
+import md.usm.bookstore.dto.BookDto;
+import md.usm.bookstore.dto.CategoryDto;
+import md.usm.bookstore.index.BookSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex();
+        index.index(book(1L, "Crime and Punishment", "9780140449136", "Fyodor", "Dostoevsky", "Classic"));
+        index.index(book(2L, "The Brothers Karamazov", "9780374528379", "Fyodor", "Dostoevsky", "Classic"));
+        index.index(book(3L, "The Hobbit", "9780261103344", "J.R.R.", "Tolkien", "Fantasy"));
+        index.index(book(4L, "The Lord of the Rings", "9780544003415", "J.R.R.", "Tolkien", "Fantasy"));
+    }
+
+    @Test
+    void search_ShouldMatchTitleAuthorCategoryAndIsbn() {
+        assertEquals(List.of(3L), ids(index.search("hobbit", 10)));
+        assertEquals(List.of(1L, 2L), ids(index.search("Dostoévsky", 10)));
+        assertEquals(List.of(3L, 4L), ids(index.search("fantasy", 10)));
+        assertEquals(List.of(4L), ids(index.search("9780544003415", 10)));
+    }
+
+    @Test
+    void search_ShouldRankDocumentsMatchingMoreTermsFirst() {
+        List<Long> result = ids(index.search("tolkien rings", 10));
+
+        assertEquals(4L, result.getFirst());
+        assertEquals(List.of(4L, 3L), result);
+    }
+
+    @Test
+    void search_ShouldRespectLimit() {
+        assertEquals(1, index.search("the", 1).size());
+    }
+
+    @Test
+    void index_ShouldReplacePreviousVersionOfBook() {
+        index.index(book(3L, "The Silmarillion", "9780261102736", "J.R.R.", "Tolkien", "Fantasy"));
+
+        assertTrue(index.search("hobbit", 10).isEmpty());
+        assertEquals(List.of(3L), ids(index.search("silmarillion", 10)));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void index_ShouldCompactWhenBooksAreOnlyEverUpdated() {
+        for (int i = 0; i < 3000; i++) {
+            index.index(book(3L, "The Hobbit " + i, "9780261103344", "J.R.R.", "Tolkien", "Fantasy"));
+        }
+
+        assertTrue(index.documentSlots() <= 1024 + 2 * index.size(), "slots: " + index.documentSlots());
+        assertEquals(4, index.size());
+        assertEquals(List.of(3L), ids(index.search("hobbit 2999", 1)));
+    }
+
+    @Test
+    void remove_ShouldDropBookFromResults() {
+        index.remove(1L);
+
+        assertEquals(List.of(2L), ids(index.search("dostoevsky", 10)));
+        assertNull(index.get(1L));
+    }
+
+    private static List<Long> ids(List<BookDto> books) {
+        return books.stream().map(BookDto::id).toList();
+    }
+
+    private static BookDto book(Long id, String title, String isbn, String firstName, String lastName, String category) {
+        return new BookDto(id, title, isbn, 10.0,
+                List.of(new AuthorDto(null, firstName, lastName, null, null)),
+                new CategoryDto(null, category, null, null),
+                null, null);
+    }
+}
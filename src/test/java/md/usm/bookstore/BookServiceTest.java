@@ -1,21 +1,35 @@
 package md.usm.bookstore;
 
+import jakarta.persistence.EntityManagerFactory;
 import md.usm.bookstore.dto.AuthorDto;
 import md.usm.bookstore.dto.BookDto;
 import md.usm.bookstore.dto.CategoryDto;
+import md.usm.bookstore.dto.CursorPageDto;
+import md.usm.bookstore.dto.FacetCountDto;
+import md.usm.bookstore.dto.FacetedPageDto;
 import md.usm.bookstore.exception.StoreException;
+import md.usm.bookstore.index.BookFilter;
 import md.usm.bookstore.model.Author;
+import md.usm.bookstore.model.Book;
 import md.usm.bookstore.model.Category;
 import md.usm.bookstore.repository.*;
 import md.usm.bookstore.service.AuthorService;
 import md.usm.bookstore.service.BookService;
 import md.usm.bookstore.service.CategoryService;
+import md.usm.bookstore.utils.ErrorType;
 import md.usm.bookstore.utils.Mapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 
+import java.util.Comparator;
 import java.util.List;
 
 import static md.usm.bookstore.utils.ErrorType.VALIDATION_ERROR;
@@ -52,6 +66,9 @@ class BookServiceTest {
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private Author author;
     private Category category;
     private BookDto bookDto;
@@ -80,6 +97,7 @@ class BookServiceTest {
                 50.0,
                 List.of(mapper.toDto(author)),
                 mapper.toDto(category),
+                null,
                 null
         );
     }
@@ -95,13 +113,15 @@ class BookServiceTest {
         assertTrue(authorDto.books().stream().anyMatch(b -> b.id().equals(result.id())));
 
         CategoryDto updatedCategory = categoryService.getById(category.getId());
-        assertTrue(updatedCategory.books().stream().anyMatch(b -> b.id().equals(result.id())));
+        assertEquals(1, updatedCategory.bookCount());
+        assertTrue(bookService.getAllByCategory(category.getId(), PageRequest.of(0, 10)).getContent().stream()
+                .anyMatch(b -> b.id().equals(result.id())));
     }
 
     @Test
     void create_ShouldThrowValidation_WhenAuthorIdIsNull() {
         BookDto dto = new BookDto(null, "Book", "123",
-                20.0, null, mapper.toDto(category), null);
+                20.0, null, mapper.toDto(category), null, null);
         StoreException ex = assertThrows(StoreException.class, () -> bookService.create(dto));
         assertEquals("Author ID is required", ex.getMessage());
         assertEquals(VALIDATION_ERROR.name(), ex.getErrorType());
@@ -116,16 +136,110 @@ class BookServiceTest {
         assertEquals(saved.title(), result.title());
     }
 
+    @Test
+    void getById_ShouldServeRepeatedReadsFromCacheUntilBookChanges() {
+        BookDto saved = bookService.create(bookDto);
+        bookService.getById(saved.id());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        bookService.getById(saved.id());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        bookService.update(saved.id(), new BookDto(null, "Updated Book", null, null, null, null, null, null));
+        assertEquals("Updated Book", bookService.getById(saved.id()).title());
+    }
+
+    @Test
+    void related_ShouldRejectLimitBelowOne() {
+        BookDto saved = bookService.create(bookDto);
+
+        StoreException ex = assertThrows(StoreException.class, () -> bookService.related(saved.id(), 0));
+        assertEquals(VALIDATION_ERROR.name(), ex.getErrorType());
+        assertEquals(HttpStatus.BAD_REQUEST.value(), ex.getStatusCode());
+        assertTrue(bookService.related(saved.id(), 1).isEmpty());
+    }
+
+    @Test
+    void getById_ShouldReflectRenamedAuthorAndCategory() {
+        BookDto saved = bookService.create(bookDto);
+        bookService.getById(saved.id());
+
+        authorService.update(author.getId(), new AuthorDto(null, "Jane", null, null, null));
+        categoryService.update(category.getId(), new CategoryDto(null, "Poetry", null, null));
+
+        BookDto result = bookService.getById(saved.id());
+        assertEquals("Jane", result.authors().getFirst().firstName());
+        assertEquals("Poetry", result.category().name());
+        assertEquals(saved.id(), bookService.search("jane poetry", 10).getFirst().id());
+    }
+
     @Test
     void update_ShouldModifyBook() {
         BookDto saved = bookService.create(bookDto);
         BookDto updateDto = new BookDto(null, "Updated Book",
-                null, null, null, null, null);
+                null, null, null, null, null, null);
 
         BookDto result = bookService.update(saved.id(), updateDto);
         assertEquals("Updated Book", result.title());
     }
 
+    @Test
+    void update_ShouldRelinkOnlyChangedAuthorsWithoutLoadingTheirBooks() {
+        Author second = authorRepository.save(new Author("Roe", "Jane"));
+        Author third = authorRepository.save(new Author("Poe", "Edgar"));
+        BookDto saved = bookService.create(new BookDto(null, "Anthology", "999", 30.0,
+                List.of(mapper.toDto(author), mapper.toDto(second)), mapper.toDto(category), null, null));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        BookDto result = bookService.update(saved.id(), new BookDto(null, null, null, null,
+                List.of(mapper.toDto(second), mapper.toDto(third)), null, null, null));
+
+        assertEquals(List.of(second.getId(), third.getId()),
+                result.authors().stream().map(AuthorDto::id).sorted().toList());
+        assertEquals(0, statistics.getCollectionStatistics(Author.class.getName() + ".books").getLoadCount());
+        assertEquals(0, statistics.getCollectionStatistics(Category.class.getName() + ".books").getLoadCount());
+        assertEquals(List.of(saved.id()), bookRepository.findIdsByAuthorId(third.getId()));
+        assertTrue(bookRepository.findIdsByAuthorId(author.getId()).isEmpty());
+    }
+
+    @Test
+    void update_ShouldCheckIfMatchVersionAndBumpIt() {
+        BookDto saved = bookService.create(bookDto);
+        assertEquals(0, saved.version());
+
+        BookDto renamed = bookService.update(saved.id(), new BookDto(null, "Renamed", null, null, null, null, null, null), 0L);
+        assertEquals(1, renamed.version());
+        assertEquals(1, bookService.getById(saved.id()).version());
+
+        StoreException ex = assertThrows(StoreException.class,
+                () -> bookService.update(saved.id(), new BookDto(null, "Stale", null, null, null, null, null, null), 0L));
+        assertEquals(ErrorType.PRECONDITION_FAILED.name(), ex.getErrorType());
+        assertEquals("Renamed", bookService.getById(saved.id()).title());
+    }
+
+    @Test
+    void update_ShouldBumpVersionWhenOnlyAuthorsChange() {
+        Author second = authorRepository.save(new Author("Roe", "Jane"));
+        BookDto saved = bookService.create(bookDto);
+
+        BookDto result = bookService.update(saved.id(), new BookDto(null, null, null, null,
+                List.of(mapper.toDto(second)), null, null, null), saved.version());
+
+        assertEquals(saved.version() + 1, result.version());
+        assertEquals(List.of(second.getId()), result.authors().stream().map(AuthorDto::id).toList());
+    }
+
+    @Test
+    void update_ShouldOnlyWriteFieldsThatDifferFromStoredBook() {
+        BookDto saved = bookService.create(bookDto);
+        BookDto unchanged = bookService.update(saved.id(), new BookDto(null, saved.title(), saved.isbn(), saved.price(),
+                saved.authors(), saved.category(), null, null));
+
+        assertEquals(saved.version(), unchanged.version());
+    }
+
     @Test
     void delete_ShouldRemoveBook() {
         BookDto saved = bookService.create(bookDto);
@@ -133,4 +247,128 @@ class BookServiceTest {
         bookService.delete(saved.id());
         assertFalse(bookRepository.findById(saved.id()).isPresent());
     }
+
+    @Test
+    void getAll_ShouldLoadAuthorsForWholePageInOneQuery() {
+        for (int i = 0; i < 12; i++) {
+            Book book = new Book("Book " + i, "isbn-" + i, 10.0 + i, List.of(author), category);
+            bookRepository.save(book);
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<BookDto> page = bookService.getAll(PageRequest.of(0, 10));
+
+        assertEquals(10, page.getNumberOfElements());
+        assertEquals(12, page.getTotalElements());
+        assertTrue(page.getContent().stream().allMatch(b -> b.authors().size() == 1 && b.category() != null));
+        // page + count + one batched author query, independent of page size
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAllByAuthor_ShouldPageOnlyThatAuthorsBooks() {
+        Author other = authorRepository.save(new Author("Smith", "Jane"));
+        for (int i = 0; i < 3; i++) {
+            bookRepository.save(new Book("Book " + i, "isbn-" + i, 10.0 + i, List.of(author), category));
+        }
+        bookRepository.save(new Book("Shared", "isbn-s", 5.0, List.of(author, other), category));
+
+        Page<BookDto> page = bookService.getAllByAuthor(other.getId(), PageRequest.of(0, 10));
+        assertEquals(1, page.getTotalElements());
+        assertEquals(2, page.getContent().getFirst().authors().size());
+
+        assertEquals(4, bookService.getAllByAuthor(author.getId(), PageRequest.of(0, 2)).getTotalElements());
+        StoreException ex = assertThrows(StoreException.class, () -> bookService.getAllByAuthor(-1L, PageRequest.of(0, 10)));
+        assertEquals("Author not found with id -1", ex.getMessage());
+    }
+
+    @Test
+    void bookCount_ShouldFollowBooksBetweenCategories() {
+        Category poetry = categoryRepository.save(new Category("Poetry"));
+        BookDto first = bookService.create(bookDto);
+        bookService.create(bookDto);
+
+        bookService.update(first.id(), new BookDto(null, null, null, null, null, mapper.toDto(poetry), null, null));
+        assertEquals(1, categoryService.getById(category.getId()).bookCount());
+        assertEquals(1, categoryService.getById(poetry.getId()).bookCount());
+
+        bookService.delete(first.id());
+        assertEquals(0, categoryService.getById(poetry.getId()).bookCount());
+        assertEquals(List.of(1L, 0L), categoryService.getAll(PageRequest.of(0, 10)).getContent().stream()
+                .sorted(Comparator.comparing(CategoryDto::id))
+                .map(CategoryDto::bookCount)
+                .toList());
+    }
+
+    @Test
+    void getAllByCategory_ShouldSortByRequestedPropertyWithIdTieBreak() {
+        bookRepository.save(new Book("B", "isbn-1", 30.0, List.of(author), category));
+        bookRepository.save(new Book("A", "isbn-2", 10.0, List.of(author), category));
+        bookRepository.save(new Book("C", "isbn-3", 10.0, List.of(author), category));
+
+        Page<BookDto> byPrice = bookService.getAllByCategory(category.getId(), PageRequest.of(0, 2, Sort.Direction.DESC, "price"));
+        assertEquals(List.of("B", "A"), byPrice.getContent().stream().map(BookDto::title).toList());
+        assertEquals(3, byPrice.getTotalElements());
+        assertEquals(List.of("C"), bookService.getAllByCategory(category.getId(), PageRequest.of(1, 2, Sort.Direction.DESC, "price"))
+                .getContent().stream().map(BookDto::title).toList());
+
+        StoreException ex = assertThrows(StoreException.class,
+                () -> bookService.getAllByCategory(category.getId(), PageRequest.of(0, 2, Sort.by("isbn"))));
+        assertEquals(VALIDATION_ERROR.name(), ex.getErrorType());
+    }
+
+    @Test
+    void getAllAfter_ShouldWalkAllBooksWithKeysetCursor() {
+        for (int i = 0; i < 5; i++) {
+            bookRepository.save(new Book("Book " + i, "isbn-" + i, 10.0 + i, List.of(author), category));
+        }
+
+        CursorPageDto<BookDto> first = bookService.getAllAfter(null, 2);
+        CursorPageDto<BookDto> second = bookService.getAllAfter(first.nextCursor(), 2);
+        CursorPageDto<BookDto> last = bookService.getAllAfter(second.nextCursor(), 2);
+
+        assertEquals(List.of("Book 0", "Book 1"), first.content().stream().map(BookDto::title).toList());
+        assertEquals(List.of("Book 2", "Book 3"), second.content().stream().map(BookDto::title).toList());
+        assertEquals(List.of("Book 4"), last.content().stream().map(BookDto::title).toList());
+        assertNull(last.nextCursor());
+        assertEquals(1, last.content().getFirst().authors().size());
+    }
+
+    @Test
+    void getAllAfter_ShouldRejectInvalidCursor() {
+        StoreException ex = assertThrows(StoreException.class, () -> bookService.getAllAfter("not a cursor", 2));
+        assertEquals(VALIDATION_ERROR.name(), ex.getErrorType());
+    }
+
+    @Test
+    void browse_ShouldFilterByCategoryAndCountFacetsFromMemory() {
+        Category poetry = categoryRepository.save(new Category("Poetry"));
+        BookDto fiction = bookService.create(bookDto);
+        bookService.create(new BookDto(null, "Odes", "888", 5.0,
+                List.of(mapper.toDto(author)), mapper.toDto(poetry), null, null));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        FacetedPageDto<BookDto> result = bookService.browse(new BookFilter(null, author.getId(), 10.0, null), 0, 10);
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(List.of(fiction.id()), result.content().stream().map(BookDto::id).toList());
+        assertEquals(List.of(new FacetCountDto(category.getId().toString(), "Fiction", 1)), result.categories());
+
+        bookService.delete(fiction.id());
+        assertEquals(0, bookService.browse(new BookFilter(category.getId(), null, null, null), 0, 10).totalElements());
+    }
+
+    @Test
+    void search_ShouldFindCreatedBookUntilItIsDeleted() {
+        BookDto saved = bookService.create(new BookDto(null, "Quixotic Zephyr Adventures", "777",
+                20.0, List.of(mapper.toDto(author)), mapper.toDto(category), null, null));
+
+        List<BookDto> found = bookService.search("zephyr doe", 10);
+        assertEquals(saved.id(), found.getFirst().id());
+
+        bookService.delete(saved.id());
+        assertTrue(bookService.search("zephyr", 10).isEmpty());
+    }
 }
@@ -0,0 +1,164 @@
+package md.usm.bookstore;
+
+import md.usm.bookstore.cache.CatalogSnapshot;
+import md.usm.bookstore.cache.CatalogSnapshotStore;
+import md.usm.bookstore.controller.BookController;
+import md.usm.bookstore.dto.AuthorDto;
+import md.usm.bookstore.dto.BookDto;
+import md.usm.bookstore.dto.CategoryDto;
+import md.usm.bookstore.dto.CursorPageDto;
+import md.usm.bookstore.exception.StoreException;
+import md.usm.bookstore.repository.*;
+import md.usm.bookstore.service.AuthorService;
+import md.usm.bookstore.service.BookService;
+import md.usm.bookstore.service.CategoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static md.usm.bookstore.utils.ErrorType.NOT_FOUND;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "catalog.snapshot.enabled=true")
+class CatalogSnapshotTest {
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CatalogSnapshotStore catalog;
+
+    @Autowired
+    private BookController bookController;
+
+    private AuthorDto author;
+    private CategoryDto category;
+    private BookDto book;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        bookRepository.deleteAll();
+        categoryRepository.deleteAll();
+        authorRepository.deleteAll();
+
+        author = authorService.create(new AuthorDto(null, "John", "Doe", null, null));
+        category = categoryService.create(new CategoryDto(null, "Fiction", null, null));
+        book = bookService.create(new BookDto(null, "Test Book", "12345", 50.0, List.of(author), category, null, null));
+    }
+
+    @Test
+    void current_ShouldMatchServiceReads() {
+        CatalogSnapshot snapshot = awaitSnapshot();
+
+        assertEquals(bookService.getById(book.id()), snapshot.books().get(book.id()));
+        assertEquals(authorService.getById(author.id()), snapshot.authors().get(author.id()));
+        assertEquals(categoryService.getById(category.id()), snapshot.categories().get(category.id()));
+    }
+
+    @Test
+    void current_ShouldBeReusedUntilCatalogChanges() {
+        CatalogSnapshot snapshot = awaitSnapshot();
+        assertSame(snapshot, catalog.current());
+
+        authorService.update(author.id(), new AuthorDto(null, "Jane", null, null, null));
+
+        CatalogSnapshot updated = awaitSnapshot();
+        assertNotSame(snapshot, updated);
+        assertEquals("Jane", updated.books().get(book.id()).authors().getFirst().firstName());
+        assertEquals("John", snapshot.books().get(book.id()).authors().getFirst().firstName());
+    }
+
+    @Test
+    void getById_ShouldReturnUpdateBeforeSnapshotReloads() {
+        awaitSnapshot();
+        BookDto change = new BookDto(null, "Renamed", null, null, null, null, null, null);
+
+        ResponseEntity<BookDto> updated = bookController.update(book.id(), "\"0\"", change);
+        ResponseEntity<BookDto> read = bookController.getById(book.id());
+
+        assertEquals("Renamed", read.getBody().title());
+        assertEquals(updated.getHeaders().getETag(), read.getHeaders().getETag());
+        ResponseEntity<BookDto> again = bookController.update(book.id(), read.getHeaders().getETag(),
+                new BookDto(null, "Renamed again", null, null, null, null, null, null));
+        assertEquals("Renamed again", again.getBody().title());
+    }
+
+    @Test
+    void current_ShouldDropDeletedBooks() {
+        bookService.delete(book.id());
+        CatalogSnapshot snapshot = awaitSnapshot();
+
+        StoreException ex = assertThrows(StoreException.class, () -> snapshot.books().get(book.id()));
+        assertEquals(NOT_FOUND.name(), ex.getErrorType());
+        assertTrue(snapshot.authors().get(author.id()).books().isEmpty());
+    }
+
+    @Test
+    void pages_ShouldFollowIdOrder() {
+        BookDto second = bookService.create(new BookDto(null, "Second Book", "67890", 20.0, List.of(author), category, null, null));
+        CatalogSnapshot snapshot = awaitSnapshot();
+
+        Page<BookDto> page = snapshot.books().page(PageRequest.of(0, 1));
+        assertEquals(2, page.getTotalElements());
+        assertEquals(book.id(), page.getContent().getFirst().id());
+
+        CursorPageDto<BookDto> first = snapshot.books().after(null, 1);
+        assertEquals(List.of(book.id()), first.content().stream().map(BookDto::id).toList());
+        CursorPageDto<BookDto> next = snapshot.books().after(first.nextCursor(), 1);
+        assertEquals(List.of(second.id()), next.content().stream().map(BookDto::id).toList());
+        assertNull(next.nextCursor());
+    }
+
+    @Test
+    void booksOfAuthorAndCategory_ShouldMatchServiceReads() {
+        BookDto second = bookService.create(new BookDto(null, "Second Book", "67890", 20.0, List.of(author), category, null, null));
+        CatalogSnapshot snapshot = awaitSnapshot();
+
+        assertEquals(bookService.getAllByAuthor(author.id(), PageRequest.of(0, 10)).getContent(),
+                snapshot.booksOfAuthor(author.id(), PageRequest.of(0, 10)).getContent());
+
+        Pageable byPrice = BookService.checkSort(PageRequest.of(0, 10, Sort.Direction.ASC, "price"));
+        Page<BookDto> page = snapshot.booksInCategory(category.id(), byPrice);
+        assertEquals(List.of(second.id(), book.id()), page.getContent().stream().map(BookDto::id).toList());
+        assertEquals(bookService.getAllByCategory(category.id(), byPrice).getContent(), page.getContent());
+
+        StoreException ex = assertThrows(StoreException.class, () -> snapshot.booksInCategory(-1L, byPrice));
+        assertEquals(NOT_FOUND.name(), ex.getErrorType());
+    }
+
+    private CatalogSnapshot awaitSnapshot() {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!catalog.isUpToDate() || catalog.current() == null) {
+            assertTrue(System.currentTimeMillis() < deadline, "snapshot was not reloaded in time");
+            Thread.onSpinWait();
+        }
+        return catalog.current();
+    }
+}
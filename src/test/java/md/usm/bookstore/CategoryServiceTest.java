@@ -12,7 +12,6 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 
-import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -54,7 +53,7 @@ class CategoryServiceTest {
         categoryDto = new CategoryDto(
                 null,
                 "Fiction",
-                Collections.emptyList(),
+                null,
                 null
         );
     }
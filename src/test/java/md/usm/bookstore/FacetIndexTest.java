@@ -0,0 +1,89 @@
+package md.usm.bookstore;
+
+import md.usm.bookstore.dto.AuthorDto;
+import md.usm.bookstore.dto.BookDto;
+import md.usm.bookstore.dto.CategoryDto;
+import md.usm.bookstore.dto.FacetCountDto;
+import md.usm.bookstore.dto.FacetedPageDto;
+import md.usm.bookstore.index.BookFilter;
+import md.usm.bookstore.index.FacetIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FacetIndexTest {
+
+    private static final BookFilter ALL = new BookFilter(null, null, null, null);
+
+    private FacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FacetIndex();
+        index.index(book(1L, 15.99, 10L, "Classic", author(100L, "Dostoevsky")));
+        index.index(book(2L, 21.99, 10L, "Classic", author(100L, "Dostoevsky"), author(101L, "Tolstoy")));
+        index.index(book(3L, 25.99, 20L, "Fantasy", author(102L, "Tolkien")));
+        index.index(book(4L, 39.99, 20L, "Fantasy", author(102L, "Tolkien")));
+        index.index(book(5L, 9.99, 30L, "Poetry", author(103L, "Pushkin")));
+    }
+
+    @Test
+    void query_ShouldReturnCatalogCountsWithoutFilter() {
+        FacetedPageDto<BookDto> result = index.query(ALL, 0, 2);
+
+        assertEquals(5, result.totalElements());
+        assertEquals(List.of(1L, 2L), ids(result));
+        assertEquals(Map.of("10", 2, "20", 2, "30", 1), counts(result.categories()));
+        assertEquals(Map.of("100", 2, "101", 1, "102", 2, "103", 1), counts(result.authors()));
+        assertEquals(Map.of("0-10", 1, "10-20", 1, "20-50", 3), counts(result.prices()));
+    }
+
+    @Test
+    void query_ShouldFilterAndCountWithinMatches() {
+        FacetedPageDto<BookDto> result = index.query(new BookFilter(null, null, 20.0, 30.0), 0, 10);
+
+        assertEquals(List.of(2L, 3L), ids(result));
+        assertEquals(Map.of("10", 1, "20", 1), counts(result.categories()));
+        assertEquals(Map.of("100", 1, "101", 1, "102", 1), counts(result.authors()));
+
+        FacetedPageDto<BookDto> byAuthor = index.query(new BookFilter(10L, 100L, null, null), 1, 1);
+        assertEquals(2, byAuthor.totalElements());
+        assertEquals(List.of(2L), ids(byAuthor));
+    }
+
+    @Test
+    void indexAndRemove_ShouldAdjustCountsIncrementally() {
+        index.index(book(3L, 5.0, 30L, "Poetry", author(103L, "Pushkin")));
+        index.remove(5L);
+
+        FacetedPageDto<BookDto> result = index.query(ALL, 0, 10);
+
+        assertEquals(4, result.totalElements());
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(result));
+        assertEquals(Map.of("10", 2, "20", 1, "30", 1), counts(result.categories()));
+        assertEquals(Map.of("0-10", 1, "10-20", 1, "20-50", 2), counts(result.prices()));
+        assertEquals(List.of(), ids(index.query(new BookFilter(null, 999L, null, null), 0, 10)));
+    }
+
+    private static List<Long> ids(FacetedPageDto<BookDto> page) {
+        return page.content().stream().map(BookDto::id).toList();
+    }
+
+    private static Map<String, Integer> counts(List<FacetCountDto> facets) {
+        return facets.stream().collect(Collectors.toMap(FacetCountDto::value, FacetCountDto::count));
+    }
+
+    private static AuthorDto author(Long id, String lastName) {
+        return new AuthorDto(id, "", lastName, null, null);
+    }
+
+    private static BookDto book(Long id, double price, Long categoryId, String category, AuthorDto... authors) {
+        return new BookDto(id, "Book " + id, "isbn-" + id, price, List.of(authors),
+                new CategoryDto(categoryId, category, null, null), null, null);
+    }
+}
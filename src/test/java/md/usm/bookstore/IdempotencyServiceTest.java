@@ -0,0 +1,157 @@
+package md.usm.bookstore;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import md.usm.bookstore.exception.StoreException;
+import md.usm.bookstore.model.Role;
+import md.usm.bookstore.repository.IdempotencyRecordRepository;
+import md.usm.bookstore.security.AuthenticatedUser;
+import md.usm.bookstore.service.IdempotencyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AuthenticatedUser user = new AuthenticatedUser(1L, "john", Role.USER);
+    private final AtomicInteger executions = new AtomicInteger();
+    private String key;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        key = UUID.randomUUID().toString();
+    }
+
+    @Test
+    void execute_ShouldReplayStoredResponseForRepeatedKey() {
+        String first = idempotencyService.execute(user, key, "test", "request", String.class, this::run);
+        String second = idempotencyService.execute(user, key, "test", "request", String.class, this::run);
+
+        assertEquals("result-1", first);
+        assertEquals("result-1", second);
+        assertEquals(1, executions.get());
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    void execute_ShouldRunEveryTimeWithoutKey() {
+        idempotencyService.execute(user, null, "test", "request", String.class, this::run);
+        idempotencyService.execute(user, null, "test", "request", String.class, this::run);
+
+        assertEquals(2, executions.get());
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    void execute_ShouldRejectKeyReusedForDifferentRequest() {
+        idempotencyService.execute(user, key, "test", "request", String.class, this::run);
+
+        StoreException exception = assertThrows(StoreException.class,
+                () -> idempotencyService.execute(user, key, "test", "other request", String.class, this::run));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(), exception.getStatusCode());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_ShouldKeepKeysOfDifferentUsersApart() {
+        AuthenticatedUser other = new AuthenticatedUser(2L, "jane", Role.USER);
+
+        idempotencyService.execute(user, key, "test", "request", String.class, this::run);
+        String result = idempotencyService.execute(other, key, "test", "request", String.class, this::run);
+
+        assertEquals("result-2", result);
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    void execute_ShouldReplayFromTableWhenNotInMemory() {
+        idempotencyService.execute(user, key, "test", "request", String.class, this::run);
+
+        // a second instance shares only the table, as after a restart or on another node
+        IdempotencyService restarted = new IdempotencyService(repository, objectMapper, transactionManager,
+                new SimpleMeterRegistry(), 60_000, 10);
+        String result = restarted.execute(user, key, "test", "request", String.class, this::run);
+
+        assertEquals("result-1", result);
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_ShouldNotStoreFailedRequests() {
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute(user, key, "test", "request", String.class, () -> {
+            executions.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }));
+
+        String result = idempotencyService.execute(user, key, "test", "request", String.class, this::run);
+
+        assertEquals("result-2", result);
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    void execute_ShouldCoalesceConcurrentDuplicates() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> first = executor.submit(() -> idempotencyService.execute(user, key, "test", "request", String.class, () -> {
+                started.countDown();
+                await(release);
+                return run();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            Future<String> second = executor.submit(() -> idempotencyService.execute(user, key, "test", "request", String.class, this::run));
+            Future<String> third = executor.submit(() -> idempotencyService.execute(user, key, "test", "request", String.class, this::run));
+            release.countDown();
+
+            assertEquals("result-1", first.get(5, TimeUnit.SECONDS));
+            assertEquals("result-1", second.get(5, TimeUnit.SECONDS));
+            assertEquals("result-1", third.get(5, TimeUnit.SECONDS));
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String run() {
+        return "result-" + executions.incrementAndGet();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
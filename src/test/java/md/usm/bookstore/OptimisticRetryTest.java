@@ -0,0 +1,118 @@
+package md.usm.bookstore;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import md.usm.bookstore.exception.StoreException;
+import md.usm.bookstore.model.Book;
+import md.usm.bookstore.repository.AuthorRepository;
+import md.usm.bookstore.repository.BookRepository;
+import md.usm.bookstore.repository.CategoryRepository;
+import md.usm.bookstore.repository.OrderRepository;
+import md.usm.bookstore.service.OptimisticRetry;
+import md.usm.bookstore.utils.ErrorType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class OptimisticRetryTest {
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private TransactionTemplate concurrentTransaction;
+    private Long bookId;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        bookRepository.deleteAll();
+        categoryRepository.deleteAll();
+        authorRepository.deleteAll();
+
+        concurrentTransaction = new TransactionTemplate(transactionManager);
+        concurrentTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        bookId = bookRepository.save(new Book("Original", "isbn", 10.0, List.of(), null)).getId();
+    }
+
+    @Test
+    void update_ShouldReapplyChangeThatCommutesWithConcurrentUpdate() {
+        double retriedBefore = conflicts("retried");
+
+        Book result = renameWhileAnotherUpdateSets("price", 25.0);
+
+        assertEquals("Renamed", result.getTitle());
+        Book stored = bookRepository.findById(bookId).orElseThrow();
+        assertEquals("Renamed", stored.getTitle());
+        assertEquals(25.0, stored.getPrice());
+        assertEquals(2, stored.getVersion());
+        assertEquals(retriedBefore + 1, conflicts("retried"));
+    }
+
+    @Test
+    void update_ShouldRejectChangeToFieldUpdatedConcurrently() {
+        double rejectedBefore = conflicts("rejected");
+
+        StoreException ex = assertThrows(StoreException.class, () -> renameWhileAnotherUpdateSets("title", "Theirs"));
+
+        assertEquals(ErrorType.CONFLICT.name(), ex.getErrorType());
+        assertEquals("Theirs", bookRepository.findById(bookId).orElseThrow().getTitle());
+        assertEquals(rejectedBefore + 1, conflicts("rejected"));
+    }
+
+    private Book renameWhileAnotherUpdateSets(String field, Object value) {
+        AtomicInteger loads = new AtomicInteger();
+        return optimisticRetry.update("book", null, Map.of("title", "Renamed"), () -> {
+            Book book = bookRepository.findById(bookId).orElseThrow();
+            if (loads.getAndIncrement() == 0) {
+                // commits between this read and the flush below
+                concurrentTransaction.executeWithoutResult(status -> {
+                    Book other = bookRepository.findById(bookId).orElseThrow();
+                    if (field.equals("price")) other.setPrice((Double) value);
+                    else other.setTitle((String) value);
+                });
+            }
+            return book;
+        }, book -> {
+            Map<String, Object> fields = new HashMap<>();
+            fields.put("title", book.getTitle());
+            fields.put("price", book.getPrice());
+            return fields;
+        }, (book, changes) -> {
+            if (changes.containsKey("title")) book.setTitle((String) changes.get("title"));
+            return bookRepository.saveAndFlush(book);
+        });
+    }
+
+    private double conflicts(String outcome) {
+        return meterRegistry.counter("optimistic.conflicts", "entity", "book", "outcome", outcome).count();
+    }
+}
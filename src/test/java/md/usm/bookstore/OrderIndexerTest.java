@@ -0,0 +1,80 @@
+package md.usm.bookstore;
+
+import md.usm.bookstore.event.OrderCreatedEvent;
+import md.usm.bookstore.index.OrderIndexer;
+import md.usm.bookstore.model.*;
+import md.usm.bookstore.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class OrderIndexerTest {
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<List<Long>> recorded = new ArrayList<>();
+    private OrderIndexer indexer;
+    private User user;
+    private Book first;
+    private Book second;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+
+        user = new User();
+        user.setUsername("john");
+        user.setEmail("john@example.com");
+        user.setPassword("pass");
+        user.setRole(Role.USER);
+        userRepository.save(user);
+        first = bookRepository.save(new Book("First", "isbn-1", 10.0, List.of(), null));
+        second = bookRepository.save(new Book("Second", "isbn-2", 10.0, List.of(), null));
+
+        indexer = new OrderIndexer(List.of(recorded::add), orderRepository, transactionManager);
+    }
+
+    @Test
+    void loadAll_ShouldCountOrderPlacedDuringReplayOnce() {
+        Order placedDuringReplay = order(first, second);
+        // its after-commit event lands before the replay reaches it
+        indexer.onOrderCreated(new OrderCreatedEvent(placedDuringReplay.getId(), List.of(first.getId(), second.getId())));
+
+        indexer.loadAll();
+
+        assertEquals(1, recorded.size());
+        Order placedAfterReplay = order(second);
+        indexer.onOrderCreated(new OrderCreatedEvent(placedAfterReplay.getId(), List.of(second.getId())));
+        assertEquals(List.of(List.of(first.getId(), second.getId()), List.of(second.getId())),
+                recorded.stream().map(ids -> ids.stream().sorted().toList()).toList());
+    }
+
+    private Order order(Book... books) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setStatus(OrderStatus.CREATED);
+        order.setBooks(Set.of(books));
+        return orderRepository.save(order);
+    }
+}
@@ -1,19 +1,34 @@
 package md.usm.bookstore;
 
+import jakarta.persistence.EntityManagerFactory;
+import md.usm.bookstore.dto.CursorPageDto;
 import md.usm.bookstore.dto.OrderDto;
 import md.usm.bookstore.dto.PaymentDto;
+import md.usm.bookstore.exception.StoreException;
 import md.usm.bookstore.model.*;
 import md.usm.bookstore.repository.*;
+import md.usm.bookstore.security.AuthenticatedUser;
 import md.usm.bookstore.service.OrderService;
+import md.usm.bookstore.utils.ErrorType;
 import md.usm.bookstore.utils.Mapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -41,8 +56,12 @@ class OrderServiceTest {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private OrderDto orderDto;
     private User testUser;
+    private AuthenticatedUser principal;
 
     @BeforeEach
     void setUp() {
@@ -64,14 +83,15 @@ class OrderServiceTest {
         testUser.setPassword("pass");
         testUser.setRole(Role.ADMIN);
         userRepository.save(testUser);
+        principal = AuthenticatedUser.of(testUser);
 
         orderDto = new OrderDto(null, LocalDateTime.now(),
-                Collections.singletonList(mapper.toDto(book)), null, OrderStatus.CREATED);
+                Collections.singletonList(mapper.toDto(book)), null, OrderStatus.CREATED, null);
     }
 
     @Test
     void create_ShouldReturnDto() {
-        OrderDto result = orderService.create(orderDto, testUser);
+        OrderDto result = orderService.create(orderDto, principal);
 
         assertNotNull(result.id());
         assertEquals(1, result.books().size());
@@ -79,8 +99,8 @@ class OrderServiceTest {
 
     @Test
     void getById_ShouldReturnOrder() {
-        OrderDto created = orderService.create(orderDto, testUser);
-        OrderDto found = orderService.getById(created.id(), testUser);
+        OrderDto created = orderService.create(orderDto, principal);
+        OrderDto found = orderService.getById(created.id(), principal);
 
         assertEquals(created.id(), found.id());
         assertEquals(created.books().size(), found.books().size());
@@ -88,43 +108,216 @@ class OrderServiceTest {
 
     @Test
     void getMyOrders_ShouldReturnOrders() {
-        orderService.create(orderDto, testUser);
-        Page<OrderDto> page = orderService.getMyOrders(testUser, Pageable.unpaged());
+        orderService.create(orderDto, principal);
+        Page<OrderDto> page = orderService.getMyOrders(principal, Pageable.unpaged());
 
         assertEquals(1, page.getTotalElements());
     }
 
+    @Test
+    void getMyOrdersAfter_ShouldWalkNewestFirstInOneStatementPerPage() {
+        OrderDto first = orderService.create(orderDto, principal);
+        OrderDto second = orderService.create(orderDto, principal);
+        OrderDto third = orderService.create(orderDto, principal);
+        User other = new User();
+        other.setUsername("jane");
+        other.setEmail("jane@example.com");
+        other.setPassword("pass");
+        other.setRole(Role.USER);
+        orderService.create(orderDto, AuthenticatedUser.of(userRepository.save(other)));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        CursorPageDto<OrderDto> page = orderService.getMyOrdersAfter(principal, null, 2, false);
+        assertEquals(List.of(third.id(), second.id()), page.content().stream().map(OrderDto::id).toList());
+        assertTrue(page.content().stream().allMatch(order -> order.books().size() == 1));
+        assertNull(page.totalElements());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        CursorPageDto<OrderDto> last = orderService.getMyOrdersAfter(principal, page.nextCursor(), 2, true);
+        assertEquals(List.of(first.id()), last.content().stream().map(OrderDto::id).toList());
+        assertEquals(3, last.totalElements());
+        assertNull(last.nextCursor());
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        StoreException ex = assertThrows(StoreException.class, () -> orderService.getMyOrdersAfter(principal, "bm9wZQ", 2, false));
+        assertEquals(ErrorType.VALIDATION_ERROR.name(), ex.getErrorType());
+    }
+
     @Test
     void update_ShouldModifyOrder() {
-        OrderDto created = orderService.create(orderDto, testUser);
+        OrderDto created = orderService.create(orderDto, principal);
 
         OrderDto updateDto = new OrderDto(null, LocalDateTime.now().plusDays(1), null, null,
-                OrderStatus.CREATED);
-        OrderDto updated = orderService.update(created.id(), updateDto, testUser);
+                OrderStatus.CREATED, null);
+        OrderDto updated = orderService.update(created.id(), updateDto, principal);
 
         assertEquals(updateDto.orderDate(), updated.orderDate());
     }
 
+    @Test
+    void update_ShouldRejectStaleIfMatchVersion() {
+        OrderDto created = orderService.create(orderDto, principal);
+        OrderDto first = new OrderDto(null, LocalDateTime.now().plusDays(1).withNano(0), null, null, null, null);
+        OrderDto second = new OrderDto(null, LocalDateTime.now().plusDays(2).withNano(0), null, null, null, null);
+
+        OrderDto updated = orderService.update(created.id(), first, principal, created.version());
+        assertEquals(created.version() + 1, updated.version());
+
+        StoreException ex = assertThrows(StoreException.class,
+                () -> orderService.update(created.id(), second, principal, created.version()));
+        assertEquals(ErrorType.PRECONDITION_FAILED.name(), ex.getErrorType());
+        assertEquals(updated.orderDate(), orderService.getById(created.id(), principal).orderDate());
+    }
+
+    @Test
+    void payOrder_ShouldBumpVersion() {
+        OrderDto created = orderService.create(orderDto, principal);
+
+        orderService.payOrder(principal, created.id(), payment(created.id()));
+
+        assertEquals(created.version() + 1, orderService.getById(created.id(), principal).version());
+    }
+
     @Test
     void payOrder_ShouldChangeStatus() {
-        OrderDto created = orderService.create(orderDto, testUser);
+        OrderDto created = orderService.create(orderDto, principal);
         PaymentDto paymentDto = new PaymentDto(
                 created.id(),
                 "1234567812345678", "TestHolder",
                 "12/25", "2003", "112", "12321");
 
-        String message = orderService.payOrder(testUser, created.id(), paymentDto);
+        String message = orderService.payOrder(principal, created.id(), paymentDto);
 
         Order order = orderRepository.findById(created.id()).orElseThrow();
         assertEquals(OrderStatus.PAYED, order.getStatus());
         assertTrue(message.contains(paymentDto.zipCode()));
     }
 
+    @Test
+    void payOrder_ShouldUseSingleStatementAndRejectSecondPayment() {
+        OrderDto created = orderService.create(orderDto, principal);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        orderService.payOrder(principal, created.id(), payment(created.id()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        StoreException ex = assertThrows(StoreException.class,
+                () -> orderService.payOrder(principal, created.id(), payment(created.id())));
+        assertEquals("Order already payed", ex.getMessage());
+    }
+
+    @Test
+    void payOrder_ShouldRejectOrderOfAnotherUser() {
+        OrderDto created = orderService.create(orderDto, principal);
+        User other = new User();
+        other.setUsername("jane");
+        other.setEmail("jane@example.com");
+        other.setPassword("pass");
+        other.setRole(Role.USER);
+        AuthenticatedUser stranger = AuthenticatedUser.of(userRepository.save(other));
+
+        StoreException ex = assertThrows(StoreException.class,
+                () -> orderService.payOrder(stranger, created.id(), payment(created.id())));
+        assertEquals(ErrorType.FORBIDDEN.name(), ex.getErrorType());
+        assertEquals(OrderStatus.CREATED, orderRepository.findById(created.id()).orElseThrow().getStatus());
+
+        ex = assertThrows(StoreException.class, () -> orderService.payOrder(stranger, -1L, payment(-1L)));
+        assertEquals(ErrorType.NOT_FOUND.name(), ex.getErrorType());
+    }
+
+    @Test
+    void payOrder_ShouldLetOnlyOneConcurrentPaymentSucceed() throws Exception {
+        OrderDto created = orderService.create(orderDto, principal);
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        orderService.payOrder(principal, created.id(), payment(created.id()));
+                        return true;
+                    } catch (StoreException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(10, TimeUnit.SECONDS)) succeeded++;
+            }
+            assertEquals(1, succeeded);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     void delete_ShouldRemoveOrder() {
-        OrderDto created = orderService.create(orderDto, testUser);
+        OrderDto created = orderService.create(orderDto, principal);
         orderService.delete(created.id());
 
         assertFalse(orderRepository.findById(created.id()).isPresent());
     }
+
+    private static PaymentDto payment(Long orderId) {
+        return new PaymentDto(orderId, "1234567812345678", "TestHolder", "12", "2030", "112", "12321");
+    }
+
+    @Test
+    void getAll_ShouldReturnOrdersWithBooks() {
+        OrderDto created = orderService.create(orderDto, principal);
+
+        Page<OrderDto> page = orderService.getAll(PageRequest.of(0, 10));
+
+        assertEquals(1, page.getTotalElements());
+        assertEquals(created.id(), page.getContent().getFirst().id());
+        assertEquals("Test Book", page.getContent().getFirst().books().getFirst().title());
+        assertEquals(OrderStatus.CREATED, page.getContent().getFirst().orderStatus());
+    }
+
+    @Test
+    void getAll_ShouldUseSameNumberOfQueriesForAnyPageSize() {
+        for (int i = 0; i < 12; i++) {
+            orderService.create(orderDto, principal);
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        for (int size : new int[]{2, 10}) {
+            statistics.clear();
+            Page<OrderDto> page = orderService.getAll(PageRequest.of(0, size));
+
+            assertEquals(size, page.getNumberOfElements());
+            assertTrue(page.getContent().stream().allMatch(order -> order.books().size() == 1));
+            // page + count + one batched book query
+            assertEquals(3, statistics.getPrepareStatementCount());
+        }
+
+        statistics.clear();
+        CursorPageDto<OrderDto> page = orderService.getAllAfter(null, 10);
+        assertEquals(10, page.content().size());
+        assertNotNull(page.nextCursor());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAllAfter_ShouldReturnOrdersWithBooksAndNextCursor() {
+        OrderDto first = orderService.create(orderDto, principal);
+        OrderDto second = orderService.create(orderDto, principal);
+
+        CursorPageDto<OrderDto> page = orderService.getAllAfter(null, 1);
+        CursorPageDto<OrderDto> next = orderService.getAllAfter(page.nextCursor(), 1);
+
+        assertEquals(first.id(), page.content().getFirst().id());
+        assertEquals(1, page.content().getFirst().books().size());
+        assertEquals(second.id(), next.content().getFirst().id());
+        assertNull(next.nextCursor());
+    }
 }
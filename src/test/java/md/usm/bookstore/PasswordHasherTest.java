@@ -0,0 +1,38 @@
+package md.usm.bookstore;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import md.usm.bookstore.exception.StoreException;
+import md.usm.bookstore.security.PasswordHasher;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void verify_ShouldMatchHash() {
+        PasswordHasher hasher = new PasswordHasher(1, 4, 5_000, meterRegistry);
+        String hash = hasher.hash("pass123");
+
+        assertTrue(hasher.verify("pass123", hash));
+        assertFalse(hasher.verify("wrong", hash));
+        assertEquals(1, meterRegistry.get("password.hashing").tag("operation", "hash").timer().count());
+        assertEquals(2, meterRegistry.get("password.hashing").tag("operation", "verify").timer().count());
+        hasher.shutdown();
+    }
+
+    @Test
+    void hash_ShouldFailFastWhenOverLatencyBudget() {
+        PasswordHasher hasher = new PasswordHasher(1, 1, 1, meterRegistry);
+
+        StoreException ex = assertThrows(StoreException.class, () -> hasher.hash("pass123"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getStatusCode());
+        assertEquals(1, meterRegistry.get("password.hashing.rejected").counter().count());
+        hasher.shutdown();
+    }
+}
@@ -0,0 +1,75 @@
+package md.usm.bookstore;
+
+import md.usm.bookstore.index.RelatedBooksIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RelatedBooksIndexTest {
+
+    private RelatedBooksIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new RelatedBooksIndex();
+        index.record(List.of(1L, 2L, 3L));
+        index.record(List.of(1L, 2L));
+        index.record(List.of(1L, 4L, 4L));
+        index.record(List.of(5L));
+    }
+
+    @Test
+    void related_ShouldRankByCoOccurrenceThenId() {
+        assertEquals(List.of(2L, 3L, 4L), index.related(1L, 10));
+        assertEquals(List.of(1L, 3L), index.related(2L, 10));
+        assertEquals(List.of(2L), index.related(1L, 1));
+        assertTrue(index.related(5L, 10).isEmpty());
+        assertTrue(index.related(99L, 10).isEmpty());
+    }
+
+    @Test
+    void record_ShouldCountDuplicateBooksOncePerOrder() {
+        index.record(List.of(4L, 1L));
+
+        assertEquals(List.of(1L), index.related(4L, 10));
+        assertEquals(List.of(2L, 4L, 3L), index.related(1L, 10));
+    }
+
+    @Test
+    void related_ShouldHandleRowsBeyondInitialCapacity() {
+        index.record(LongStream.rangeClosed(100, 140).boxed().toList());
+        index.record(List.of(100L, 140L));
+
+        List<Long> related = index.related(100L, RelatedBooksIndex.MAX_RELATED + 5);
+        assertEquals(RelatedBooksIndex.MAX_RELATED, related.size());
+        assertEquals(140L, related.getFirst());
+        assertEquals(101L, related.get(1));
+    }
+
+    @Test
+    void remove_ShouldDropDeletedBookFromEveryRow() {
+        index.remove(1L);
+
+        assertTrue(index.related(1L, 10).isEmpty());
+        assertEquals(List.of(3L), index.related(2L, 10));
+        assertTrue(index.related(4L, 10).isEmpty());
+    }
+
+    @Test
+    void related_ShouldRankLiveNeighboursAfterTopOnesAreDeleted() {
+        index.record(LongStream.rangeClosed(100, 145).boxed().toList());
+        for (long top = 101; top <= 120; top++) {
+            index.record(List.of(100L, top));
+        }
+
+        LongStream.rangeClosed(101, 120).forEach(index::remove);
+
+        List<Long> related = index.related(100L, RelatedBooksIndex.MAX_RELATED);
+        assertEquals(LongStream.rangeClosed(121, 140).boxed().toList(), related);
+        assertEquals(List.of(100L), index.related(145L, 1));
+    }
+}
@@ -0,0 +1,107 @@
+package md.usm.bookstore;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import md.usm.bookstore.model.Role;
+import md.usm.bookstore.security.AuthenticatedUser;
+import md.usm.bookstore.service.SessionStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionStoreTest {
+
+    private MeterRegistry meterRegistry;
+    private AuthenticatedUser user;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        user = new AuthenticatedUser(1L, "john", Role.USER);
+    }
+
+    @Test
+    void get_ShouldReturnUserForLiveSession() {
+        SessionStore store = new SessionStore(60_000, 10, meterRegistry);
+        store.put("token", user);
+
+        assertSame(user, store.get("token"));
+        assertEquals(1, meterRegistry.get("sessions.live").gauge().value());
+        assertEquals(1, meterRegistry.get("sessions.lookup").timer().count());
+    }
+
+    @Test
+    void evictExpired_ShouldDropExpiredSessions() throws InterruptedException {
+        SessionStore store = new SessionStore(1, 10, meterRegistry);
+        store.put("a", user);
+        store.put("b", user);
+        Thread.sleep(5);
+
+        store.evictExpired();
+
+        assertEquals(0, store.size());
+        assertEquals(2, meterRegistry.get("sessions.evictions").tag("cause", "expired").counter().count());
+    }
+
+    @Test
+    void put_ShouldEvictOldestSessionWhenFull() {
+        SessionStore store = new SessionStore(60_000, 2, meterRegistry);
+        store.put("a", user);
+        store.put("b", user);
+        store.put("c", user);
+
+        assertEquals(2, store.size());
+        assertNull(store.get("a"));
+        assertNotNull(store.get("c"));
+        assertEquals(1, meterRegistry.get("sessions.evictions").tag("cause", "capacity").counter().count());
+    }
+
+    @Test
+    void remove_ShouldInvalidateSession() {
+        SessionStore store = new SessionStore(60_000, 10, meterRegistry);
+        store.put("token", user);
+        store.remove("token");
+
+        assertNull(store.get("token"));
+    }
+
+    @Test
+    void remove_ShouldKeepExpiryQueueBoundedUnderRepeatedLogins() {
+        SessionStore store = new SessionStore(60_000, 10, meterRegistry);
+        store.put("kept", user);
+        for (int i = 0; i < 100_000; i++) {
+            store.put("token-" + i, user);
+            store.remove("token-" + i);
+        }
+
+        assertEquals(1, store.size());
+        assertTrue(meterRegistry.get("sessions.queued").gauge().value() < 2_000);
+        assertSame(user, store.get("kept"));
+    }
+
+    @Test
+    void put_ShouldNotExceedCapacityUnderConcurrentLogins() throws InterruptedException {
+        SessionStore store = new SessionStore(60_000, 100, meterRegistry);
+        AtomicInteger largest = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            int offset = t * 10_000;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    store.put("token-" + (offset + i), user);
+                    largest.accumulateAndGet(store.size(), Math::max);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(100, store.size());
+        assertEquals(100, largest.get());
+    }
+}
@@ -0,0 +1,105 @@
+package md.usm.bookstore;
+
+import md.usm.bookstore.model.Role;
+import md.usm.bookstore.repository.RevokedTokenRepository;
+import md.usm.bookstore.security.AuthenticatedUser;
+import md.usm.bookstore.security.RevokedTokenStore;
+import md.usm.bookstore.security.SignedTokenManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class SignedTokenManagerTest {
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AuthenticatedUser user = new AuthenticatedUser(42L, "john:doe", Role.ADMIN);
+
+    @BeforeEach
+    void setUp() {
+        revokedTokenRepository.deleteAll();
+    }
+
+    @Test
+    void resolve_ShouldReturnPrincipalFromToken() {
+        SignedTokenManager tokenManager = node("secret");
+        String token = tokenManager.issue(user);
+
+        assertEquals(user, tokenManager.resolve(token));
+    }
+
+    @Test
+    void resolve_ShouldAcceptTokenIssuedByAnotherNodeWithSameSecret() {
+        String token = node("secret").issue(user);
+
+        assertEquals(user, node("secret").resolve(token));
+        assertNull(node("other-secret").resolve(token));
+    }
+
+    @Test
+    void resolve_ShouldRejectTamperedToken() {
+        SignedTokenManager tokenManager = node("secret");
+        String token = tokenManager.issue(user);
+        String forged = node("secret")
+                .issue(new AuthenticatedUser(42L, "john:doe", Role.USER));
+
+        String tampered = forged.substring(0, forged.indexOf('.')) + token.substring(token.indexOf('.'));
+
+        assertNull(tokenManager.resolve(tampered));
+        assertNull(tokenManager.resolve("garbage"));
+        assertNull(tokenManager.resolve(null));
+    }
+
+    @Test
+    void resolve_ShouldRejectExpiredToken() throws InterruptedException {
+        SignedTokenManager tokenManager = new SignedTokenManager("secret", 1, store());
+        String token = tokenManager.issue(user);
+        Thread.sleep(5);
+
+        assertNull(tokenManager.resolve(token));
+    }
+
+    @Test
+    void revoke_ShouldInvalidateToken() {
+        SignedTokenManager tokenManager = node("secret");
+        String token = tokenManager.issue(user);
+
+        tokenManager.revoke(token);
+
+        assertNull(tokenManager.resolve(token));
+    }
+
+    @Test
+    void revoke_ShouldInvalidateTokenOnOtherNodesAfterRefresh() {
+        RevokedTokenStore otherStore = store();
+        SignedTokenManager nodeA = node("secret");
+        SignedTokenManager nodeB = new SignedTokenManager("secret", 60_000, otherStore);
+        String token = nodeA.issue(user);
+
+        nodeA.revoke(token);
+        assertEquals(user, nodeB.resolve(token));
+        otherStore.refresh();
+
+        assertNull(nodeB.resolve(token));
+        assertNull(node("secret").resolve(token));
+        assertEquals(1, revokedTokenRepository.count());
+    }
+
+    // every manager gets its own store, as on a separate node sharing the database
+    private SignedTokenManager node(String secret) {
+        return new SignedTokenManager(secret, 60_000, store());
+    }
+
+    private RevokedTokenStore store() {
+        return new RevokedTokenStore(revokedTokenRepository, transactionManager);
+    }
+}
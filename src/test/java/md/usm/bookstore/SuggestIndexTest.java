@@ -0,0 +1,88 @@
+package md.usm.bookstore;
+
+import md.usm.bookstore.dto.AuthorDto;
+import md.usm.bookstore.dto.BookDto;
+import md.usm.bookstore.dto.SuggestionDto;
+import md.usm.bookstore.index.SuggestIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestIndexTest {
+
+    private SuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SuggestIndex();
+        index.index(book(1L, "The Hobbit", author(10L, "J.R.R.", "Tolkien")));
+        index.index(book(2L, "The Lord of the Rings", author(10L, "J.R.R.", "Tolkien")));
+        index.index(book(3L, "Lolita", author(11L, "Vladimir", "Nabokov")));
+        index.index(book(4L, "Crime and Punishment", author(12L, "Fyodor", "Dostoévsky")));
+    }
+
+    @Test
+    void suggest_ShouldMatchAnyWordOfTitlesAndAuthorNames() {
+        assertEquals(List.of("Lolita", "The Lord of the Rings"), texts(index.suggest("lo", 10)));
+        assertEquals(List.of("J.R.R. Tolkien"), texts(index.suggest("Tolk", 10)));
+        assertEquals(List.of("Fyodor Dostoévsky"), texts(index.suggest("dostoe", 10)));
+        assertEquals(List.of("The Lord of the Rings"), texts(index.suggest("the lord o", 10)));
+        assertTrue(index.suggest("xyz", 10).isEmpty());
+        assertTrue(index.suggest("  ", 10).isEmpty());
+    }
+
+    @Test
+    void suggest_ShouldRankByOrdersAndRespectLimit() {
+        index.record(List.of(2L));
+        index.record(List.of(2L, 3L));
+        index.record(List.of(3L));
+        index.record(List.of(3L));
+
+        assertEquals(List.of("Lolita", "The Lord of the Rings"), texts(index.suggest("lo", 10)));
+        assertEquals(List.of("Lolita"), texts(index.suggest("lo", 1)));
+
+        List<SuggestionDto> byAuthor = index.suggest("j", 10);
+        assertEquals(SuggestionDto.Type.AUTHOR, byAuthor.getFirst().type());
+        assertEquals(10L, byAuthor.getFirst().id());
+    }
+
+    @Test
+    void suggest_ShouldReflectWrites() {
+        assertEquals(List.of("The Hobbit", "The Lord of the Rings"), texts(index.suggest("the", 10)));
+
+        index.index(book(1L, "There and Back Again", author(10L, "J.R.R.", "Tolkien")));
+        index.remove(2L);
+
+        assertEquals(List.of("There and Back Again"), texts(index.suggest("the", 10)));
+        assertTrue(index.suggest("hob", 10).isEmpty());
+    }
+
+    @Test
+    void suggest_ShouldKeepAuthorKeysWhileTheyHaveBooks() {
+        index.remove(1L);
+        assertEquals(List.of("J.R.R. Tolkien"), texts(index.suggest("tolkien", 10)));
+
+        index.index(book(2L, "The Lord of the Rings", author(10L, "John Ronald Reuel", "Tolkien")));
+        assertEquals(List.of("John Ronald Reuel Tolkien"), texts(index.suggest("tolkien", 10)));
+        assertTrue(index.suggest("j.r.r", 10).isEmpty());
+
+        index.remove(2L);
+        assertTrue(index.suggest("tolkien", 10).isEmpty());
+        assertEquals(List.of("Vladimir Nabokov"), texts(index.suggest("nabokov", 10)));
+    }
+
+    private static List<String> texts(List<SuggestionDto> suggestions) {
+        return suggestions.stream().map(SuggestionDto::text).toList();
+    }
+
+    private static AuthorDto author(Long id, String firstName, String lastName) {
+        return new AuthorDto(id, firstName, lastName, null, null);
+    }
+
+    private static BookDto book(Long id, String title, AuthorDto author) {
+        return new BookDto(id, title, "isbn-" + id, 10.0, List.of(author), null, null, null);
+    }
+}
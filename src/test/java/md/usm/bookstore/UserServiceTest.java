@@ -6,11 +6,22 @@ import md.usm.bookstore.exception.StoreException;
 import md.usm.bookstore.model.Role;
 import md.usm.bookstore.model.User;
 import md.usm.bookstore.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import md.usm.bookstore.security.AuthenticatedUser;
+import md.usm.bookstore.security.PasswordHasher;
+import md.usm.bookstore.security.TokenManager;
 import md.usm.bookstore.service.UserService;
+import md.usm.bookstore.utils.Mapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -23,6 +34,15 @@ class UserServiceTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private Mapper mapper;
+
+    @Autowired
+    private TokenManager tokenManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private User testUser;
 
     @BeforeEach
@@ -40,12 +60,37 @@ class UserServiceTest {
         assertEquals("john@example.com", userDto.email());
     }
 
+    @Test
+    void createAndUpdate_ShouldHashPasswordOutsideTransaction() {
+        List<Boolean> hashedInTransaction = new ArrayList<>();
+        PasswordHasher hasher = new PasswordHasher(1, 4, 2000, new SimpleMeterRegistry()) {
+            @Override
+            public String hash(String password) {
+                hashedInTransaction.add(TransactionSynchronizationManager.isActualTransactionActive());
+                return super.hash(password);
+            }
+        };
+        UserService service = new UserService(userRepository, mapper, tokenManager, hasher, transactionManager);
+
+        UserDto created = service.create(new RegistrationRequestDto("jane", "jane@example.com", "pass123"));
+        AuthenticatedUser jane = new AuthenticatedUser(created.id(), "jane", Role.USER);
+        service.update(created.id(), new UserDto(null, null, null, "newpass123", null, null, null), jane);
+
+        assertEquals(List.of(false, false), hashedInTransaction);
+        assertNotNull(userService.login("jane", "newpass123"));
+        assertThrows(StoreException.class,
+                () -> service.update(testUser.getId(), new UserDto(null, null, null, "other123", null, null, null), jane));
+        assertEquals(2, hashedInTransaction.size());
+        hasher.shutdown();
+    }
+
     @Test
     void login_ShouldReturnToken() {
         String token = userService.login("john", "pass123");
         assertNotNull(token);
-        User userFromToken = userService.getUserByToken(token);
-        assertEquals("john", userFromToken.getUsername());
+        AuthenticatedUser userFromToken = userService.getUserByToken(token);
+        assertEquals("john", userFromToken.username());
+        assertEquals(testUser.getId(), userFromToken.id());
     }
 
     @Test
@@ -56,8 +101,8 @@ class UserServiceTest {
     @Test
     void validateToken_ShouldReturnUser() {
         String token = userService.login("john", "pass123");
-        User user = userService.validateToken(token);
-        assertEquals("john", user.getUsername());
+        AuthenticatedUser user = userService.validateToken(token);
+        assertEquals("john", user.username());
     }
 
     @Test
@@ -71,18 +116,18 @@ class UserServiceTest {
     @Test
     void validateRole_ShouldCheckRole() {
         String token = userService.login("john", "pass123");
-        User user = userService.validateRole(token, Role.USER);
-        assertEquals(Role.USER, user.getRole());
+        AuthenticatedUser user = userService.validateRoles(token, EnumSet.of(Role.USER));
+        assertEquals(Role.USER, user.role());
 
-        assertThrows(StoreException.class, () -> userService.validateRole(token, Role.ADMIN));
+        assertThrows(StoreException.class, () -> userService.validateRoles(token, EnumSet.of(Role.ADMIN)));
     }
 
     @Test
     void validateRoles_ShouldCheckMultipleRoles() {
         String token = userService.login("john", "pass123");
-        User user = userService.validateRoles(token, Role.USER, Role.ADMIN);
-        assertEquals(Role.USER, user.getRole());
+        AuthenticatedUser user = userService.validateRoles(token, EnumSet.of(Role.USER, Role.ADMIN));
+        assertEquals(Role.USER, user.role());
 
-        assertThrows(StoreException.class, () -> userService.validateRoles(token, Role.ADMIN));
+        assertThrows(StoreException.class, () -> userService.validateRoles(token, EnumSet.of(Role.ADMIN)));
     }
 }